@@ -0,0 +1,93 @@
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.player.DefaultAudioPlayerManager;
+import net.dv8tion.jda.core.JDA;
+import net.dv8tion.jda.core.entities.ChannelType;
+import net.dv8tion.jda.core.entities.Guild;
+import net.dv8tion.jda.core.entities.Message;
+import net.dv8tion.jda.core.entities.TextChannel;
+import net.dv8tion.jda.core.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.core.managers.AudioManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link eRadio#onMessageReceived(MessageReceivedEvent)} for a chat message that is not a command, and for
+ * -leave, the cheapest command (it only asks the stub audio manager to disconnect). The channel's burst is raised so
+ * -leave is never throttled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-DeRadio.channelBurst=1000000000")
+public class DispatchBenchmark {
+
+    private eRadio bot;
+    private MessageReceivedEvent chat;
+    private MessageReceivedEvent command;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException, IOException {
+        AudioPlayerManager playerManager = new DefaultAudioPlayerManager();
+        Constructor<eRadio> constructor = eRadio.class.getDeclaredConstructor(
+                StationRegistry.class, GuildSettingsStore.class, String.class, AudioPlayerManager.class, StationCache.class);
+        constructor.setAccessible(true);
+        GuildSettingsStore settings = new GuildSettingsStore(null);
+        bot = constructor.newInstance(new StationRegistry(Collections.singletonList("http://radio.example.net:8000/stream"), settings),
+                settings, "General", playerManager, new StationCache(playerManager));
+
+        AudioManager audioManager = Stubs.of(AudioManager.class, Collections.emptyMap());
+        Guild guild = Stubs.of(Guild.class, Collections.singletonMap("getAudioManager", audioManager));
+        Map<String, Object> channelAnswers = new HashMap<>();
+        channelAnswers.put("getGuild", guild);
+        channelAnswers.put("getId", "1");
+        TextChannel channel = Stubs.of(TextChannel.class, channelAnswers);
+        JDA jda = Stubs.of(JDA.class, Collections.emptyMap());
+
+        chat = new MessageReceivedEvent(jda, 1, message(guild, channel, "Is this song on Spotify?"));
+        command = new MessageReceivedEvent(jda, 2, message(guild, channel, "-leave"));
+    }
+
+    @Benchmark
+    public MessageReceivedEvent chat() {
+        bot.onMessageReceived(chat);
+        return chat;
+    }
+
+    @Benchmark
+    public MessageReceivedEvent command() {
+        bot.onMessageReceived(command);
+        return command;
+    }
+
+    /**
+     * @return A guild text message with the given content.
+     */
+    private static Message message(Guild guild, TextChannel channel, String content) {
+        Map<String, Object> answers = new HashMap<>();
+        answers.put("getContent", content);
+        answers.put("getRawContent", content);
+        answers.put("getGuild", guild);
+        answers.put("getTextChannel", channel);
+        answers.put("getChannel", channel);
+        answers.put("getChannelType", ChannelType.TEXT);
+        answers.put("isFromType", true);
+        return Stubs.of(Message.class, answers);
+    }
+}
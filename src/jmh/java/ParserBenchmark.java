@@ -0,0 +1,83 @@
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Parses a recorded status-json.xsl with both {@link InternetRadioParser} parsers.<br>
+ * "small" is the recorded document as is (three mounts). "large" repeats its first mount under 2000 other mount
+ * points and lists the station's own mount last, which is the worst case for the streaming parser.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    private static final String MOUNT_POINT = "stream";
+    private static final int LARGE_MOUNTS = 2000;
+
+    @Param({"small", "large"})
+    public String fixture;
+
+    private String json;
+
+    @Setup
+    public void setup() throws IOException {
+        String recorded;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                ParserBenchmark.class.getResourceAsStream("/status-json.json"), StandardCharsets.UTF_8))) {
+            recorded = reader.lines().collect(Collectors.joining("\n"));
+        }
+
+        if (fixture.equals("small")) {
+            json = recorded;
+            return;
+        }
+
+        JsonObject document = new JsonParser().parse(recorded).getAsJsonObject();
+        JsonArray sources = document.getAsJsonObject("icestats").getAsJsonArray("source");
+        String template = sources.get(0).toString();
+        JsonObject station = sources.get(sources.size() - 1).getAsJsonObject();
+
+        JsonArray large = new JsonArray();
+        for (int i = 0; i < LARGE_MOUNTS; i++) {
+            JsonObject copy = new JsonParser().parse(template).getAsJsonObject();
+            copy.addProperty("listenurl", "http://radio.example.net:8000/mount" + i);
+            large.add(copy);
+        }
+        large.add(station);
+        document.getAsJsonObject("icestats").add("source", large);
+        json = document.toString();
+    }
+
+    @Benchmark
+    public StationStatus streaming() throws IOException {
+        return InternetRadioParser.parseStatus(new StringReader(json), MOUNT_POINT);
+    }
+
+    @Benchmark
+    public StationStatus tree() {
+        return InternetRadioParser.parseStatus(new JsonParser().parse(json).getAsJsonObject());
+    }
+}
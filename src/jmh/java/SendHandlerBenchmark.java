@@ -0,0 +1,72 @@
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
+import com.sedmelluq.discord.lavaplayer.track.playback.MutableAudioFrame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One call of JDA's send loop (canProvide, then provide20MsAudio) against a stub {@link AudioPlayer} that always has a
+ * 160 byte Opus frame ready. The "starved" benchmark uses a player that never has one. The stub is a dynamic proxy,
+ * so the argument array of each provide call (about 16 bytes) shows up in gc.alloc.rate.norm; the handler itself
+ * should add nothing on top of that.<br>
+ * The handler's modes are set with system properties, so compare them with e.g.
+ * -Djmh.args="-prof gc -jvmArgsAppend -DeRadio.reuseFrames=false".
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SendHandlerBenchmark {
+
+    private static final byte[] FRAME = new byte[160];
+
+    private AudioPlayerSendHandler playing;
+    private AudioPlayerSendHandler starved;
+
+    @Setup
+    public void setup() {
+        playing = new AudioPlayerSendHandler(player(true));
+        playing.setActive(true);
+        starved = new AudioPlayerSendHandler(player(false));
+        starved.setActive(true);
+    }
+
+    @Benchmark
+    public byte[] provide() {
+        return playing.canProvide() ? playing.provide20MsAudio() : null;
+    }
+
+    @Benchmark
+    public boolean starved() {
+        return starved.canProvide();
+    }
+
+    /**
+     * @param hasFrames Whether the player has a frame every time it is asked.
+     * @return A player that only answers provide.
+     */
+    private static AudioPlayer player(boolean hasFrames) {
+        return (AudioPlayer) Proxy.newProxyInstance(AudioPlayer.class.getClassLoader(), new Class<?>[]{AudioPlayer.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("provide"))
+                        return Stubs.defaultValue(method.getReturnType());
+                    if (args == null || !(args[0] instanceof MutableAudioFrame))
+                        return null;
+                    if (hasFrames)
+                        ((MutableAudioFrame) args[0]).store(FRAME, 0, FRAME.length);
+                    return hasFrames;
+                });
+    }
+}
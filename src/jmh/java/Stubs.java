@@ -0,0 +1,47 @@
+import java.lang.reflect.Proxy;
+import java.util.Map;
+
+/**
+ * Stand-ins for JDA and lavaplayer interfaces, so benchmarks run without Discord or a live stream.
+ */
+final class Stubs {
+
+    private Stubs() {}
+
+    /**
+     * @param type Interface to implement.
+     * @param answers Return values keyed by method name. Every other method returns null, false or 0.
+     * @return A proxy implementing type.
+     */
+    static <T> T of(Class<T> type, Map<String, Object> answers) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (answers.containsKey(method.getName()))
+                return answers.get(method.getName());
+            return defaultValue(method.getReturnType());
+        }));
+    }
+
+    /**
+     * @param type A method's return type.
+     * @return The value a field of that type starts with.
+     */
+    static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class)
+            return null;
+        if (type == boolean.class)
+            return false;
+        if (type == char.class)
+            return '\0';
+        if (type == byte.class)
+            return (byte) 0;
+        if (type == short.class)
+            return (short) 0;
+        if (type == int.class)
+            return 0;
+        if (type == long.class)
+            return 0L;
+        if (type == float.class)
+            return 0f;
+        return 0d;
+    }
+}
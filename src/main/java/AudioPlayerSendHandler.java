@@ -1,27 +1,147 @@
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
 import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrame;
+import com.sedmelluq.discord.lavaplayer.track.playback.MutableAudioFrame;
 import net.dv8tion.jda.core.audio.AudioSendHandler;
 
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * This is a wrapper around AudioPlayer which makes it behave as an AudioSendHandler for JDA. As JDA calls canProvide
  * before every call to provide20MsAudio(), we pull the frame in canProvide() and use the frame we already pulled in
- * provide20MsAudio().
+ * provide20MsAudio().<br>
+ * While attached to a {@link StationBroadcaster}, frames are read through the guild's cursor instead of the player.<br>
+ * By default frames are read into one reusable {@link MutableAudioFrame} and copied into an array kept per frame
+ * length, so steady-state playback allocates nothing. JDA sends the returned array before asking for the next one,
+ * so reusing it is safe. Set -DeRadio.reuseFrames=false to get a fresh frame from the player every time.<br>
+ * With -DeRadio.jitterFrames=N (N &gt; 0) a background filler keeps up to N frames in a {@link JitterBuffer} ahead of the
+ * 20 ms send loop, trading N * 20 ms of latency for smoothness. Underruns (playback starving), overruns (frames
+ * dropped for falling behind) and the buffer fill level are counted per guild either way.<br>
+ * While muted, canProvide() keeps taking frames so the station stays live, but drops them and returns false, so JDA
+ * sends nothing instead of encoded silence.
  */
 public class AudioPlayerSendHandler implements AudioSendHandler {
+    private static final boolean REUSE_FRAMES = !"false".equalsIgnoreCase(System.getProperty("eRadio.reuseFrames"));
+
+    /**
+     * Depth of each guild's {@link JitterBuffer} in frames, or 0 to send frames straight from the source.
+     */
+    private static final int JITTER_FRAMES = Math.max(0, Integer.getInteger("eRadio.jitterFrames", 0));
+
+    /**
+     * How often (in milliseconds) fillers top up their {@link JitterBuffer}.
+     */
+    private static final long FILL_INTERVAL = 10;
+
+    /**
+     * Underruns across all guilds.
+     */
+    static final LongAdder UNDERRUNS = Metrics.counter("eradio_send_underruns_total");
+
+    private static final ScheduledExecutorService FILLERS = Executors.newScheduledThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2), r -> {
+                Thread thread = new Thread(r, "eRadio-jitter-filler");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MAX_PRIORITY);
+                return thread;
+            });
+
+    /**
+     * Largest Opus frame that fits in the reusable buffer.
+     */
+    private static final int MAX_FRAME_SIZE = 4096;
+
     private final AudioPlayer audioPlayer;
-    private AudioFrame lastFrame;
+    private final MutableAudioFrame frame = new MutableAudioFrame();
+    /**
+     * Output arrays indexed by frame length. An Opus stream only uses a small set of lengths, so this stays small.
+     */
+    private final byte[][] framesBySize = new byte[MAX_FRAME_SIZE + 1][];
+    private volatile StationBroadcaster.Cursor cursor;
+    private byte[] lastFrame;
+
+    private final JitterBuffer jitterBuffer = JITTER_FRAMES > 0 ? new JitterBuffer(JITTER_FRAMES) : null;
+    private ScheduledFuture<?> filler;
+    /**
+     * How often each buffer fill level was seen when a frame was requested. Only written by the send loop.
+     */
+    private final long[] fillCounts = new long[JITTER_FRAMES + 1];
+    private volatile long underruns;
+    private volatile long dropped;
+    private boolean providing;
+    /**
+     * True while the guild is playing. Empty frame requests are only counted as missed while it is.
+     */
+    private volatile boolean active;
+    /**
+     * True while frames are dropped instead of sent.
+     */
+    private volatile boolean muted;
+    /**
+     * Run once when the next frame is provided, or null.
+     */
+    private volatile Runnable firstFrameListener;
 
     /**
      * @param audioPlayer Audio player to wrap.
      */
     AudioPlayerSendHandler(AudioPlayer audioPlayer) {
         this.audioPlayer = audioPlayer;
+        this.frame.setBuffer(ByteBuffer.allocate(MAX_FRAME_SIZE));
+    }
+
+    /**
+     * @param cursor Cursor into a shared station to read frames from, or null to read from the player again.
+     */
+    void setCursor(StationBroadcaster.Cursor cursor) {
+        this.cursor = cursor;
+    }
+
+    /**
+     * Marks the guild as playing or stopped, and starts or stops topping up the {@link JitterBuffer} if buffering is on.
+     *
+     * @param active True while the guild is playing.
+     */
+    synchronized void setActive(boolean active) {
+        this.active = active;
+        if (jitterBuffer == null)
+            return;
+
+        if (active && filler == null)
+            filler = FILLERS.scheduleAtFixedRate(this::fill, 0, FILL_INTERVAL, TimeUnit.MILLISECONDS);
+        else if (!active && filler != null) {
+            filler.cancel(false);
+            filler = null;
+        }
+    }
+
+    /**
+     * @param listener Run on the send loop once the next frame is provided, or null to cancel a previous listener.
+     */
+    void onFirstFrame(Runnable listener) {
+        this.firstFrameListener = listener;
+    }
+
+    /**
+     * @param muted True to drop frames instead of sending them.
+     */
+    void setMuted(boolean muted) {
+        this.muted = muted;
     }
 
     @Override
     public boolean canProvide() {
+        if (muted) {
+            discard();
+            return false;
+        }
+
         if (lastFrame == null) {
-            lastFrame = audioPlayer.provide();
+            lastFrame = next();
         }
 
         return lastFrame != null;
@@ -30,10 +150,10 @@ public class AudioPlayerSendHandler implements AudioSendHandler {
     @Override
     public byte[] provide20MsAudio() {
         if (lastFrame == null) {
-            lastFrame = audioPlayer.provide();
+            lastFrame = next();
         }
 
-        byte[] data = lastFrame != null ? lastFrame.data : null;
+        byte[] data = lastFrame;
         lastFrame = null;
 
         return data;
@@ -43,4 +163,109 @@ public class AudioPlayerSendHandler implements AudioSendHandler {
     public boolean isOpus() {
         return true;
     }
-}
\ No newline at end of file
+
+    /**
+     * @return Number of times playback starved after it had been providing frames.
+     */
+    long getUnderruns() {
+        return underruns;
+    }
+
+    /**
+     * @return Number of frames dropped, either skipped for falling behind a shared station or too big to buffer.
+     */
+    long getOverruns() {
+        StationBroadcaster.Cursor current = cursor;
+        return dropped + (current != null ? current.getSkipped() : 0);
+    }
+
+    /**
+     * @return Copy of how often each {@link JitterBuffer} fill level (the index) was seen when a frame was requested.
+     */
+    long[] getFillCounts() {
+        return fillCounts.clone();
+    }
+
+    /**
+     * Takes the next frame for the send loop and updates the underrun, fill and {@link Metrics} frame counts.
+     *
+     * @return The next Opus frame, or null if none is ready.
+     */
+    private byte[] next() {
+        byte[] data;
+        if (jitterBuffer != null) {
+            fillCounts[jitterBuffer.size()]++;
+            data = jitterBuffer.poll();
+        }
+        else
+            data = pull();
+
+        if (data != null) {
+            providing = true;
+            Metrics.FRAMES_PROVIDED.increment();
+            Runnable listener = firstFrameListener;
+            if (listener != null) {
+                firstFrameListener = null;
+                listener.run();
+            }
+            return data;
+        }
+
+        if (active)
+            Metrics.FRAMES_MISSED.increment();
+        if (providing) {
+            providing = false;
+            underruns++;
+            UNDERRUNS.increment();
+        }
+        return null;
+    }
+
+    /**
+     * Drops the frame that would have been sent, keeping the guild at the live position of its source.
+     */
+    private void discard() {
+        lastFrame = null;
+        if (jitterBuffer != null)
+            jitterBuffer.poll();
+        else
+            pull();
+    }
+
+    /**
+     * Tops up the {@link JitterBuffer} from the source. Runs on a filler thread.
+     */
+    private void fill() {
+        while (!jitterBuffer.isFull()) {
+            byte[] data = pull();
+            if (data == null)
+                return;
+            if (!jitterBuffer.offer(data))
+                dropped++;
+        }
+    }
+
+    /**
+     * @return The next Opus frame from the shared station or the player, or null if none is ready.
+     */
+    private byte[] pull() {
+        StationBroadcaster.Cursor current = cursor;
+        if (current != null)
+            return current.next();
+
+        if (!REUSE_FRAMES) {
+            AudioFrame provided = audioPlayer.provide();
+            return provided != null ? provided.getData() : null;
+        }
+
+        if (!audioPlayer.provide(frame))
+            return null;
+
+        int length = frame.getDataLength();
+        byte[] data = framesBySize[length];
+        if (data == null)
+            data = framesBySize[length] = new byte[length];
+        frame.getData(data, 0);
+        return data;
+    }
+}
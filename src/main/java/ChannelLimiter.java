@@ -0,0 +1,88 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limits how much work (and how many replies) one channel can cause.<br>
+ * Each channel has a token bucket: a command takes a token, the bucket holds at most a burst of tokens, and one token
+ * comes back every refill interval. Identical requests in a channel can also be coalesced, so only the first within
+ * a window is answered.
+ */
+class ChannelLimiter {
+
+    /**
+     * A channel's tokens.
+     */
+    private static final class Bucket {
+        double tokens;
+        volatile long updatedAt;
+
+        Bucket(double tokens, long updatedAt) {
+            this.tokens = tokens;
+            this.updatedAt = updatedAt;
+        }
+    }
+
+    private final int burst;
+    private final long refillMillis;
+    private final long coalesceMillis;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    /**
+     * When (from {@link System#currentTimeMillis()}) each request key was last accepted.
+     */
+    private final Map<String, Long> accepted = new ConcurrentHashMap<>();
+
+    /**
+     * @param burst Most commands a channel can run back to back.
+     * @param refillMillis How long (in milliseconds) it takes to get one token back.
+     * @param coalesceMillis How long (in milliseconds) after an accepted request identical ones are coalesced into it.
+     */
+    ChannelLimiter(int burst, long refillMillis, long coalesceMillis) {
+        this.burst = burst;
+        this.refillMillis = refillMillis;
+        this.coalesceMillis = coalesceMillis;
+    }
+
+    /**
+     * Takes a token from the channel's bucket.
+     *
+     * @param channelId ID of the channel.
+     * @return False if the bucket is empty and the command should be dropped.
+     */
+    boolean tryAcquire(String channelId) {
+        long now = System.currentTimeMillis();
+        Bucket bucket = buckets.computeIfAbsent(channelId, id -> new Bucket(burst, now));
+        synchronized (bucket) {
+            bucket.tokens = Math.min(burst, bucket.tokens + (double) (now - bucket.updatedAt) / refillMillis);
+            bucket.updatedAt = now;
+            if (bucket.tokens < 1)
+                return false;
+            bucket.tokens--;
+            return true;
+        }
+    }
+
+    /**
+     * @param channelId ID of the channel.
+     * @param request What is being asked for, e.g. the command's name.
+     * @return True if the same request was accepted in the channel within the coalescing window, so this one should
+     * be dropped. Otherwise the request is accepted.
+     */
+    boolean isCoalesced(String channelId, String request) {
+        long now = System.currentTimeMillis();
+        boolean[] coalesced = new boolean[1];
+        accepted.compute(channelId + ' ' + request, (key, last) -> {
+            coalesced[0] = last != null && now - last < coalesceMillis;
+            return coalesced[0] ? last : now;
+        });
+        return coalesced[0];
+    }
+
+    /**
+     * Forgets channels whose bucket has refilled and whose requests are outside the coalescing window.
+     */
+    void evictIdle() {
+        long now = System.currentTimeMillis();
+        buckets.entrySet().removeIf(entry -> now - entry.getValue().updatedAt > burst * refillMillis);
+        accepted.entrySet().removeIf(entry -> now - entry.getValue() >= coalesceMillis);
+    }
+}
@@ -0,0 +1,124 @@
+import net.dv8tion.jda.core.events.message.MessageReceivedEvent;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Dispatches "-name [arguments]" messages to registered commands.<br>
+ * Almost every message the bot sees is ordinary chat, so a message is rejected as soon as its first character is not
+ * {@link #PREFIX}, without allocating. Names are matched case-insensitively in place, by looking only at the commands
+ * that share the name's first letter. Matched commands only run if the registry's admission check lets them.
+ */
+class CommandRegistry {
+
+    /**
+     * Character every command starts with.
+     */
+    static final char PREFIX = '-';
+
+    /**
+     * A command's handler.
+     */
+    interface Command {
+        /**
+         * @param event The message that invoked the command.
+         * @param arguments Everything after the command's name, trimmed. Empty if there is nothing.
+         */
+        void run(MessageReceivedEvent event, String arguments);
+    }
+
+    private static final class Entry {
+        final String name;
+        final boolean takesArguments;
+        final Command command;
+
+        Entry(String name, boolean takesArguments, Command command) {
+            this.name = name;
+            this.takesArguments = takesArguments;
+            this.command = command;
+        }
+    }
+
+    private static final Entry[] NONE = new Entry[0];
+
+    /**
+     * Commands indexed by the lower case first letter of their name (the character after {@link #PREFIX}).
+     */
+    private final Entry[][] byFirstLetter = new Entry[128][];
+
+    private Predicate<MessageReceivedEvent> admission = event -> true;
+
+    CommandRegistry() {
+        Arrays.fill(byFirstLetter, NONE);
+    }
+
+    /**
+     * @param name Name of the command without {@link #PREFIX}, starting with an ASCII letter or digit.
+     * @param takesArguments Whether the command accepts arguments. If not, "-name something" does not match it.
+     * @param command The command's handler.
+     * @return This registry.
+     * @throws IllegalArgumentException If name does not start with an ASCII letter or digit.
+     */
+    CommandRegistry register(String name, boolean takesArguments, Command command) {
+        char first = name.isEmpty() ? 0 : Character.toLowerCase(name.charAt(0));
+        if (first >= 128 || !Character.isLetterOrDigit(first))
+            throw new IllegalArgumentException("Command names must start with an ASCII letter or digit: " + name);
+
+        Entry[] entries = byFirstLetter[first];
+        Entry[] grown = Arrays.copyOf(entries, entries.length + 1);
+        grown[entries.length] = new Entry(name, takesArguments, command);
+        byFirstLetter[first] = grown;
+        return this;
+    }
+
+    /**
+     * @param admission Decides whether a matched command may run, e.g. to rate limit a channel.
+     * @return This registry.
+     */
+    CommandRegistry admitting(Predicate<MessageReceivedEvent> admission) {
+        this.admission = admission;
+        return this;
+    }
+
+    /**
+     * Runs the command content invokes, if any and if it is admitted.
+     *
+     * @param event The message event.
+     * @param content The message's content.
+     * @return True if content invoked a command, whether or not it was admitted.
+     */
+    boolean dispatch(MessageReceivedEvent event, String content) {
+        if (content.length() < 2 || content.charAt(0) != PREFIX)
+            return false;
+
+        char first = Character.toLowerCase(content.charAt(1));
+        if (first >= 128)
+            return false;
+
+        for (Entry entry : byFirstLetter[first]) {
+            int end = entry.name.length() + 1;
+            if (!content.regionMatches(true, 1, entry.name, 0, entry.name.length()))
+                continue;
+
+            // The name has to end at the end of the message or at whitespace, so "-stopped" is not "-stop".
+            if (end == content.length()) {
+                run(entry, event, "");
+                return true;
+            }
+            if (!Character.isWhitespace(content.charAt(end)))
+                continue;
+
+            String arguments = content.substring(end).trim();
+            if (arguments.isEmpty() || entry.takesArguments) {
+                run(entry, event, arguments);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void run(Entry entry, MessageReceivedEvent event, String arguments) {
+        if (admission.test(event))
+            entry.command.run(event, arguments);
+    }
+}
@@ -1,8 +1,18 @@
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
 
 /**
- * Holder for both the player and a track scheduler for one guild.
+ * Holder for both the player and a track scheduler for one guild, along with the guild's playback state.<br>
+ * Rough per-guild CPU cost of each mode, per 20 ms frame:<br>
+ * - Shared station (volume 100%): the station is decoded and Opus encoded once by its {@link StationBroadcaster};
+ * each guild only copies the encoded frame, so nearly nothing.<br>
+ * - Own player at 100%: one decode and one Opus encode per guild. Packets of a source that is already Opus in
+ * Discord's format are passed through instead (see {@link StationFormat}).<br>
+ * - Own player below 100%: decode, volume scaling on PCM and Opus encode per guild, whatever the source. This is the
+ * most expensive mode, and it also takes the guild off its shared station.<br>
+ * - Muted: frames are still taken from the source (so unmuting is instant) but dropped, so the cost is that of the
+ * mode underneath minus sending. The volume is left alone, so a muted shared guild stays shared.
  */
 class GuildMusicManager {
     /**
@@ -13,6 +23,34 @@ class GuildMusicManager {
      * Track scheduler for the player.
      */
     final TrackScheduler scheduler;
+    /**
+     * Wrapper around {@link #player} handed to JDA. Created once and reused.
+     */
+    private final AudioPlayerSendHandler sendHandler;
+    /**
+     * The audio form of the station this guild is playing, or null if it is stopped.
+     */
+    private volatile AudioTrack station;
+    /**
+     * URL of the station this guild is playing, or null if it is stopped.
+     */
+    private volatile String stationURL;
+    /**
+     * Shared station this guild is reading from, or null if it plays through its own {@link #player}.
+     */
+    private volatile StationBroadcaster broadcaster;
+    /**
+     * Volume of {@link #player} in percent.
+     */
+    private volatile int volume = 100;
+    /**
+     * True while the guild is muted.
+     */
+    private volatile boolean muted;
+    /**
+     * Last time (from {@link System#currentTimeMillis()}) the guild used this manager.
+     */
+    private volatile long lastUsed = System.currentTimeMillis();
 
     /**
      * Creates a player and a track scheduler.
@@ -22,12 +60,123 @@ class GuildMusicManager {
         player = manager.createPlayer();
         scheduler = new TrackScheduler(player);
         player.addListener(scheduler);
+        sendHandler = new AudioPlayerSendHandler(player);
     }
 
     /**
      * @return Wrapper around AudioPlayer to use it as an AudioSendHandler.
      */
     AudioPlayerSendHandler getSendHandler() {
-        return new AudioPlayerSendHandler(player);
+        return sendHandler;
+    }
+
+    /**
+     * @return The station being played, or null if the guild is stopped.
+     */
+    AudioTrack getStation() {
+        return station;
+    }
+
+    /**
+     * @return URL of the station being played, or null if the guild is stopped.
+     */
+    String getStationURL() {
+        return stationURL;
+    }
+
+    /**
+     * @param station The station now being played, or null once stopped.
+     * @param stationURL URL the station was loaded from, or null once stopped.
+     */
+    void setStation(AudioTrack station, String stationURL) {
+        this.station = station;
+        this.stationURL = stationURL;
+        sendHandler.setActive(station != null);
+        touch();
+    }
+
+    /**
+     * @return Volume of the guild's own player in percent.
+     */
+    int getVolume() {
+        return volume;
+    }
+
+    /**
+     * Sets the volume of the guild's own player. A shared station is always played at 100%.
+     *
+     * @param volume Volume in percent.
+     */
+    void setVolume(int volume) {
+        this.volume = volume;
+        player.setVolume(volume);
+    }
+
+    /**
+     * @return True if the guild is muted.
+     */
+    boolean isMuted() {
+        return muted;
+    }
+
+    /**
+     * Mutes or unmutes the guild without touching its volume, so it keeps passing frames through as they are.
+     *
+     * @param muted True to send nothing.
+     */
+    void setMuted(boolean muted) {
+        this.muted = muted;
+        sendHandler.setMuted(muted);
+    }
+
+    /**
+     * Plays a shared station instead of this guild's own player.
+     *
+     * @param broadcaster The station's broadcaster.
+     */
+    void attach(StationBroadcaster broadcaster) {
+        this.broadcaster = broadcaster;
+        sendHandler.setCursor(broadcaster.newCursor());
+    }
+
+    /**
+     * @return True if the guild is playing a shared station.
+     */
+    boolean isShared() {
+        return broadcaster != null;
+    }
+
+    /**
+     * Stops the current track (or leaves the shared station) and clears the station.
+     */
+    void stop() {
+        sendHandler.setCursor(null);
+        broadcaster = null;
+        scheduler.clear();
+        player.stopTrack();
+        setStation(null, null);
+    }
+
+    /**
+     * Marks the manager as used now, which keeps it from being evicted.
+     */
+    void touch() {
+        lastUsed = System.currentTimeMillis();
+    }
+
+    /**
+     * @param idleMillis How long the manager has to be unused.
+     * @return True if nothing is playing and the manager has not been used for idleMillis.
+     */
+    boolean isIdle(long idleMillis) {
+        return station == null && System.currentTimeMillis() - lastUsed > idleMillis;
+    }
+
+    /**
+     * Releases the player. The manager must not be used afterwards.
+     */
+    void destroy() {
+        sendHandler.setActive(false);
+        player.destroy();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,253 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Each guild's settings, kept on disk.<br>
+ * The directory holds a snapshot file and a log file. Every change appends the guild's whole record to the log, so
+ * loading is reading the snapshot and replaying the log, last record winning. Once the log holds
+ * {@link #COMPACT_AFTER} records (and at startup) the snapshot is rewritten and the log emptied. Records are one line
+ * each: guild ID, station, voice channel ID, volume and whether the guild was playing (1 or 0), separated by tabs,
+ * with empty fields left unset.
+ */
+class GuildSettingsStore {
+
+    /**
+     * How many records the log holds before it is compacted into the snapshot. Set with
+     * -DeRadio.settingsCompactAfter.
+     */
+    private static final int COMPACT_AFTER = Integer.getInteger("eRadio.settingsCompactAfter", 10000);
+
+    /**
+     * One guild's settings. Immutable; changes make a copy.
+     */
+    static final class GuildSettings {
+
+        /**
+         * Settings of a guild that has not changed any.
+         */
+        static final GuildSettings DEFAULT = new GuildSettings(null, null, 100, false);
+
+        private final String station;
+        private final String voiceChannelId;
+        private final int volume;
+        private final boolean playing;
+
+        private GuildSettings(String station, String voiceChannelId, int volume, boolean playing) {
+            this.station = station;
+            this.voiceChannelId = voiceChannelId;
+            this.volume = volume;
+            this.playing = playing;
+        }
+
+        /**
+         * @return Name of the selected station, or null for the default.
+         */
+        String getStation() {
+            return station;
+        }
+
+        /**
+         * @return ID of the voice channel to play in, or null for the one named in bot.properties.
+         */
+        String getVoiceChannelId() {
+            return voiceChannelId;
+        }
+
+        /**
+         * @return Volume in percent.
+         */
+        int getVolume() {
+            return volume;
+        }
+
+        /**
+         * @return True if the guild was playing when it last started or stopped, so it should be resumed.
+         */
+        boolean isPlaying() {
+            return playing;
+        }
+
+        GuildSettings withStation(String station) {
+            return new GuildSettings(station, voiceChannelId, volume, playing);
+        }
+
+        GuildSettings withVoiceChannelId(String voiceChannelId) {
+            return new GuildSettings(station, voiceChannelId, volume, playing);
+        }
+
+        GuildSettings withVolume(int volume) {
+            return new GuildSettings(station, voiceChannelId, volume, playing);
+        }
+
+        GuildSettings withPlaying(boolean playing) {
+            return new GuildSettings(station, voiceChannelId, volume, playing);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof GuildSettings))
+                return false;
+            GuildSettings other = (GuildSettings) o;
+            return volume == other.volume && playing == other.playing && Objects.equals(station, other.station) &&
+                    Objects.equals(voiceChannelId, other.voiceChannelId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(station, voiceChannelId, volume, playing);
+        }
+    }
+
+    private final Path snapshot;
+    private final Path log;
+    private final Map<String, GuildSettings> settings = new ConcurrentHashMap<>();
+
+    /**
+     * Appends to {@link #log}. Guarded by this.
+     */
+    private Writer logWriter;
+    private int logRecords;
+
+    /**
+     * Loads the settings in directory, creating it if needed, and compacts them.
+     *
+     * @param directory Directory holding the settings, or null to keep them in memory only.
+     * @throws IOException If the settings could not be read or written.
+     */
+    GuildSettingsStore(Path directory) throws IOException {
+        if (directory == null) {
+            snapshot = log = null;
+            return;
+        }
+
+        Files.createDirectories(directory);
+        snapshot = directory.resolve("snapshot");
+        log = directory.resolve("log");
+
+        long start = System.nanoTime();
+        int records = read(snapshot) + read(log);
+        compact();
+        System.out.println("Loaded settings of " + settings.size() + " guilds (" + records + " records) in " +
+                (System.nanoTime() - start) / 1000000 + " ms.");
+    }
+
+    /**
+     * @param guildId ID of the guild.
+     * @return The guild's settings, or {@link GuildSettings#DEFAULT} if it has none.
+     */
+    GuildSettings get(String guildId) {
+        return settings.getOrDefault(guildId, GuildSettings.DEFAULT);
+    }
+
+    /**
+     * Changes the guild's settings and writes them to the log.
+     *
+     * @param guildId ID of the guild.
+     * @param change Makes the new settings from the current ones.
+     * @throws UncheckedIOException If the change could not be written. It is still applied in memory.
+     */
+    synchronized void update(String guildId, UnaryOperator<GuildSettings> change) {
+        GuildSettings current = get(guildId);
+        GuildSettings changed = change.apply(current);
+        if (changed.equals(current))
+            return;
+
+        if (changed.equals(GuildSettings.DEFAULT))
+            settings.remove(guildId);
+        else
+            settings.put(guildId, changed);
+
+        if (log == null)
+            return;
+        try {
+            logWriter.write(format(guildId, changed));
+            logWriter.flush();
+            if (++logRecords >= COMPACT_AFTER)
+                compact();
+        } catch (IOException e) {throw new UncheckedIOException(e);}
+    }
+
+    /**
+     * Writes every guild's settings to a new snapshot, moves it over the old one and empties the log. A crash between
+     * the move and emptying the log only leaves records the snapshot already has.
+     */
+    private synchronized void compact() throws IOException {
+        Path temp = snapshot.resolveSibling("snapshot.tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, GuildSettings> entry : settings.entrySet())
+                writer.write(format(entry.getKey(), entry.getValue()));
+        }
+        Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        if (logWriter != null)
+            logWriter.close();
+        logWriter = Files.newBufferedWriter(log, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        logRecords = 0;
+    }
+
+    /**
+     * Applies every record in file. Lines that do not parse (such as one cut off by a crash) are skipped.
+     *
+     * @return Number of records read.
+     */
+    private int read(Path file) throws IOException {
+        if (!Files.exists(file))
+            return 0;
+
+        int records = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int stationStart = line.indexOf('\t') + 1;
+                int voiceStart = line.indexOf('\t', stationStart) + 1;
+                int volumeStart = line.indexOf('\t', voiceStart) + 1;
+                // Records written before the playing field was added end at the volume.
+                int playingStart = line.indexOf('\t', volumeStart) + 1;
+                if (stationStart == 0 || voiceStart == 0 || volumeStart == 0 || playingStart > 0 && playingStart != line.length() - 1)
+                    continue;
+
+                GuildSettings record;
+                try {
+                    record = new GuildSettings(
+                            field(line, stationStart, voiceStart - 1),
+                            field(line, voiceStart, volumeStart - 1),
+                            Integer.parseInt(playingStart > 0 ? line.substring(volumeStart, playingStart - 1) : line.substring(volumeStart)),
+                            playingStart > 0 && line.charAt(playingStart) == '1');
+                } catch (NumberFormatException e) {continue;}
+
+                String guildId = line.substring(0, stationStart - 1);
+                if (record.equals(GuildSettings.DEFAULT))
+                    settings.remove(guildId);
+                else
+                    settings.put(guildId, record);
+                records++;
+            }
+        }
+        return records;
+    }
+
+    private static String field(String line, int start, int end) {
+        return start == end ? null : line.substring(start, end);
+    }
+
+    private static String format(String guildId, GuildSettings record) {
+        return guildId + '\t' +
+                (record.station != null ? record.station : "") + '\t' +
+                (record.voiceChannelId != null ? record.voiceChannelId : "") + '\t' +
+                record.volume + '\t' +
+                (record.playing ? '1' : '0') + '\n';
+    }
+}
@@ -0,0 +1,71 @@
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram with power-of-two buckets. Recording a value does not allocate once the adders have warmed up,
+ * so it is cheap enough to use on hot paths.
+ */
+class Histogram {
+    private static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    Histogram() {
+        for (int i = 0; i < BUCKETS; i++)
+            buckets[i] = new LongAdder();
+    }
+
+    /**
+     * @param value Value to record. Negative values are recorded as 0.
+     */
+    void record(long value) {
+        if (value < 0)
+            value = 0;
+        // Bucket i holds values from 2^(i-1) up to 2^i - 1, and bucket 0 holds 0.
+        buckets[BUCKETS - Long.numberOfLeadingZeros(value)].increment();
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    long getCount() {return count.sum();}
+
+    long getSum() {return sum.sum();}
+
+    long getMax() {return max.get();}
+
+    /**
+     * @param percentile Percentile between 0 and 100.
+     * @return Upper bound of the bucket holding the percentile, or 0 if nothing was recorded.
+     */
+    long getPercentile(double percentile) {
+        long total = getCount();
+        if (total == 0)
+            return 0;
+
+        long target = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i].sum();
+            if (seen >= target)
+                return (1L << i) - 1;
+        }
+        return getMax();
+    }
+
+    /**
+     * @return Summary of the histogram, reading the recorded values as nanoseconds.
+     */
+    String summarizeNanos() {
+        long total = getCount();
+        return String.format("count=%d mean=%.2fms p50<=%.2fms p99<=%.2fms max=%.2fms",
+                total,
+                total == 0 ? 0 : getSum() / (double) total / 1e6,
+                getPercentile(50) / 1e6,
+                getPercentile(99) / 1e6,
+                getMax() / 1e6);
+    }
+}
@@ -0,0 +1,80 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Reads in-band ICY metadata from a station's stream on a daemon thread and hands each StreamTitle to a
+ * {@link MetadataPoller}.<br>
+ * lavaplayer does not expose the connection it plays from, so this keeps one connection per station (not per guild)
+ * and throws the audio away. If the server does not send icy-metaint, or the connection drops, the poller is told to
+ * fall back to status-json.xsl.
+ */
+class IcyMetadataReader implements Runnable {
+    private final String stationURL;
+    private final MetadataPoller poller;
+    private volatile HttpURLConnection connection;
+    private volatile boolean stopped;
+
+    /**
+     * @param stationURL Radio station's mp3 stream.
+     * @param poller Poller to report titles to.
+     */
+    IcyMetadataReader(String stationURL, MetadataPoller poller) {
+        this.stationURL = stationURL;
+        this.poller = poller;
+    }
+
+    /**
+     * Starts reading on a new daemon thread.
+     */
+    void start() {
+        Thread thread = new Thread(this, "eRadio-icy-" + InternetRadioParser.getMountPoint(stationURL));
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops reading and closes the connection.
+     */
+    void stop() {
+        stopped = true;
+        HttpURLConnection current = connection;
+        if (current != null)
+            current.disconnect();
+    }
+
+    @Override
+    public void run() {
+        try {
+            HttpURLConnection request = (HttpURLConnection) new URL(stationURL).openConnection();
+            connection = request;
+            request.setRequestProperty("Icy-MetaData", "1");
+            request.setConnectTimeout(InternetRadioParser.CONNECT_TIMEOUT);
+            request.setReadTimeout(30000);
+
+            int metaInterval = request.getHeaderFieldInt("icy-metaint", -1);
+            if (metaInterval <= 0) {
+                request.disconnect();
+                if (!stopped)
+                    poller.onIcyUnavailable();
+                return;
+            }
+
+            String name = request.getHeaderField("icy-name");
+            byte[] discard = new byte[8192];
+            try (InputStream in = new IcyMetadataStream(request.getInputStream(), metaInterval,
+                    title -> poller.onIcyTitle(name, title))) {
+                while (!stopped && in.read(discard) >= 0) {
+                    // Only the metadata is needed; the audio is played by lavaplayer.
+                }
+            }
+        } catch (IOException e) {
+            if (!stopped)
+                System.out.println("Lost ICY metadata for " + stationURL + ": " + e.getMessage());
+        }
+
+        if (!stopped)
+            poller.onIcyUnavailable();
+    }
+}
@@ -0,0 +1,121 @@
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Strips in-band ICY metadata blocks out of a SHOUTcast/Icecast stream and reports each new StreamTitle.<br>
+ * A server that was sent "Icy-MetaData: 1" inserts a metadata block after every icy-metaint bytes of audio. The block
+ * is one length byte (in 16 byte units) followed by text such as "StreamTitle='Artist - Title';".
+ */
+class IcyMetadataStream extends FilterInputStream {
+    private static final String TITLE_START = "StreamTitle='";
+    private static final String TITLE_END = "';";
+
+    private final int metaInterval;
+    private final Consumer<String> titleListener;
+    private final byte[] metadata = new byte[255 * 16];
+    private int untilMetadata;
+    private String lastTitle;
+
+    /**
+     * @param in Stream of the station, positioned right after the response headers.
+     * @param metaInterval Value of the icy-metaint response header.
+     * @param titleListener Called with the StreamTitle whenever it changes.
+     */
+    IcyMetadataStream(InputStream in, int metaInterval, Consumer<String> titleListener) {
+        super(in);
+        this.metaInterval = metaInterval;
+        this.titleListener = titleListener;
+        this.untilMetadata = metaInterval;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (untilMetadata == 0 && !readMetadata())
+            return -1;
+
+        int b = in.read();
+        if (b >= 0)
+            untilMetadata--;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0)
+            return 0;
+        if (untilMetadata == 0 && !readMetadata())
+            return -1;
+
+        int read = in.read(b, off, Math.min(len, untilMetadata));
+        if (read > 0)
+            untilMetadata -= read;
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // Skipping the underlying stream directly would skip over metadata blocks, so read through them instead.
+        byte[] buffer = new byte[(int) Math.min(n, 4096)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read < 0)
+                break;
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {return false;}
+
+    /**
+     * Reads the next metadata block and reports its StreamTitle if it changed.
+     *
+     * @return False if the stream ended.
+     * @throws IOException If the stream could not be read.
+     */
+    private boolean readMetadata() throws IOException {
+        int length = in.read();
+        if (length < 0)
+            return false;
+
+        length *= 16;
+        int offset = 0;
+        while (offset < length) {
+            int read = in.read(metadata, offset, length - offset);
+            if (read < 0)
+                return false;
+            offset += read;
+        }
+        untilMetadata = metaInterval;
+
+        if (length > 0) {
+            String title = parseTitle(new String(metadata, 0, length, StandardCharsets.UTF_8));
+            if (title != null && !title.equals(lastTitle)) {
+                lastTitle = title;
+                titleListener.accept(title);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param block Text of a metadata block.
+     * @return The StreamTitle in block, or null if it has none.
+     */
+    static String parseTitle(String block) {
+        int start = block.indexOf(TITLE_START);
+        if (start < 0)
+            return null;
+        start += TITLE_START.length();
+
+        int end = block.indexOf(TITLE_END, start);
+        if (end < 0)
+            end = block.lastIndexOf('\'');
+        return end >= start ? block.substring(start, end).trim() : null;
+    }
+}
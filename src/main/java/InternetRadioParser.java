@@ -1,25 +1,91 @@
 import com.google.gson.*;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Gets an internet radio station's information.
  */
 class InternetRadioParser {
 
+    /**
+     * How long (in milliseconds) a fetched status-json.xsl is reused. Set with -DeRadio.statusTTL.
+     */
+    private static final long STATUS_TTL = Long.getLong("eRadio.statusTTL", 5000);
+
+    /**
+     * How long (in milliseconds) past {@link #STATUS_TTL} a status is still served while it is refreshed in the
+     * background. Set with -DeRadio.statusStale.
+     */
+    private static final long STATUS_STALE = Long.getLong("eRadio.statusStale", 25000);
+
+    /**
+     * How long (in milliseconds) to wait for a connection to a radio server. Set with -DeRadio.connectTimeout.
+     */
+    static final int CONNECT_TIMEOUT = Integer.getInteger("eRadio.connectTimeout", 3000);
+
+    /**
+     * How long (in milliseconds) to wait for data from a radio server. Set with -DeRadio.readTimeout.
+     */
+    static final int READ_TIMEOUT = Integer.getInteger("eRadio.readTimeout", 5000);
+
+    /**
+     * Whether status-json.xsl is read token by token and only the station's own mount is kept. When false, the whole
+     * document is parsed into a tree and every mount is kept. Set with -DeRadio.treeParser=true to use the tree.
+     */
+    private static final boolean STREAMING_PARSER = !Boolean.getBoolean("eRadio.treeParser");
+
+    /**
+     * Parsed status-json.xsl snapshots, shared by every guild. Keyed by the station's URL when
+     * {@link #STREAMING_PARSER} is set, otherwise by the status-json.xsl URL.
+     */
+    private static final StatusCache<StationStatus> STATUS_CACHE =
+            new StatusCache<>(InternetRadioParser::fetchStatus, STATUS_TTL, STATUS_STALE);
+
+    /**
+     * Gets the status of the mounts on the radio station's server. With {@link #STREAMING_PARSER} set the snapshot
+     * only holds the station's own mount.
+     *
+     * @param url Radio station's mp3 stream.
+     * @return Snapshot of the server's status.
+     * @throws UncheckedIOException If the server could not be reached.
+     * @throws JsonParseException If the server's status could not be read.
+     */
+    static StationStatus getStatus(String url) {return STATUS_CACHE.get(STREAMING_PARSER ? url : getJsonURL(url));}
+
+    /**
+     * Gets the status of the radio station's own mount.
+     *
+     * @param url Radio station's mp3 stream.
+     * @return The mount's status, or null if it could not be fetched or the server does not list the mount.
+     */
+    static StationStatus.Mount getMount(String url) {
+        try {
+            return getStatus(url).getMount(getMountPoint(url));
+        } catch (Exception e) {return null;}
+    }
+
     /**
      * Gets the radio station's name from the url parameter.
      *
      * @param url Radio station's mp3 stream.
      * @return Radio Station's name.
      */
-    static String getStationName(String url) {return getInfo(url, "station");}
+    static String getStationName(String url) {return getInfo(url, StationStatus.Mount::getName);}
 
     /**
      * Gets the radio station's song from the url parameter.
@@ -27,7 +93,7 @@ class InternetRadioParser {
      * @param url Radio station's mp3 stream.
      * @return Current song's title.
      */
-    static String getCurrentSong(String url){return getInfo(url, "song");}
+    static String getCurrentSong(String url){return getInfo(url, StationStatus.Mount::getTitle);}
 
     /**
      * Gets the radio station's artist from the url parameter.
@@ -35,7 +101,7 @@ class InternetRadioParser {
      * @param url Radio station's mp3 stream.
      * @return Current song's artist.
      */
-    static String getCurrentSongArtist(String url) {return getInfo(url, "artist");}
+    static String getCurrentSongArtist(String url) {return getInfo(url, StationStatus.Mount::getArtist);}
 
     /**
      * Gets the radio station's song info from the url parameter.
@@ -43,68 +109,272 @@ class InternetRadioParser {
      * @param url Radio station's mp3 stream.
      * @return Current song's artist and title.
      */
-    static String getCurrentSongInfo(String url) {return getInfo(url, "info");}
+    static String getCurrentSongInfo(String url) {return getInfo(url, StationStatus.Mount::getCurrentlyPlaying);}
 
     /**
      * Gets info from the radio station provided by the url parameter.
      *
      * @param url Radio station's mp3 stream.
-     * @param type Type of info wanting to be returned.
-     * @return Info based on type parameter.
+     * @param field Field of the mount wanting to be returned.
+     * @return Info based on field parameter.
      * @see #getStationName(String)
      * @see #getCurrentSong(String)
      */
-    private static String getInfo(String url, String type){
-        String mountPoint = getMountPoint(url);
+    private static String getInfo(String url, Function<StationStatus.Mount, String> field){
+        StationStatus status;
+        try {
+            status = getStatus(url);
+        } catch (UncheckedIOException e) {return "Could not connect to: " + getJsonURL(url);}
+        catch (Exception e) {return "Was unable to get JSON data from: " + getJsonURL(url);}
+
+        StationStatus.Mount mount = status.getMount(getMountPoint(url));
+        return mount != null ? field.apply(mount) : StationStatus.UNKNOWN;
+    }
+
+    /**
+     * Downloads and parses a status-json.xsl document, recording how long it took (or that it failed) in
+     * {@link Metrics}.
+     *
+     * @param key Station URL when {@link #STREAMING_PARSER} is set, otherwise the status-json.xsl URL.
+     * @return The parsed snapshot.
+     * @throws UncheckedIOException If the server could not be reached.
+     */
+    private static StationStatus fetchStatus(String key) {
+        long start = System.nanoTime();
+        try {
+            return download(key);
+        } catch (RuntimeException e) {
+            Metrics.METADATA_ERRORS.increment();
+            throw e;
+        } finally {
+            Metrics.METADATA_FETCH.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @param key Station URL when {@link #STREAMING_PARSER} is set, otherwise the status-json.xsl URL.
+     * @return The parsed snapshot.
+     * @throws UncheckedIOException If the server could not be reached.
+     */
+    private static StationStatus download(String key) {
+        String jsonURL = STREAMING_PARSER ? getJsonURL(key) : key;
 
-        URL mount;
         HttpURLConnection request;
         try {
             // Connect to the URL using java's native library
-            mount = new URL(getJsonURL(url));
-            request = (HttpURLConnection) mount.openConnection();
+            request = (HttpURLConnection) new URL(jsonURL).openConnection();
+            request.setConnectTimeout(CONNECT_TIMEOUT);
+            request.setReadTimeout(READ_TIMEOUT);
             request.connect();
-        } catch (Exception e) {return "Could not connect to: " + getJsonURL(url);}
+        } catch (IOException e) {throw new UncheckedIOException(e);}
 
-        // Convert to a JSON object to print data
-        JsonParser jp = new JsonParser(); //from gson
-        JsonElement jsonResponse;
-        try {
-            jsonResponse = jp.parse(new JsonReader(new InputStreamReader((InputStream) request.getContent())));
-        } catch (Exception e) {return "Was unable to get JSON data from: " + getJsonURL(url);}
-
-        JsonObject obj = jsonResponse.getAsJsonObject();
-        JsonArray sourceArray = obj.getAsJsonObject("icestats").getAsJsonArray("source");
-
-        String stationName = "Unknown";
-        String artist = "Unknown";
-        String song = "Unknown";
-        String fullSongInfo = "Unknown";
-
-        for(JsonElement element : sourceArray){
-            if(element.toString().contains(mountPoint)) {
-                if(element.getAsJsonObject().get("server_name") != null)
-                    stationName = element.getAsJsonObject().get("server_name").getAsString();
-                if(element.getAsJsonObject().get("artist") != null)
-                    artist = element.getAsJsonObject().get("artist").getAsString();
-                if(element.getAsJsonObject().get("title") != null)
-                    song = element.getAsJsonObject().get("title").getAsString();
-                if(element.getAsJsonObject().get("yp_currently_playing") != null)
-                    fullSongInfo = element.getAsJsonObject().get("yp_currently_playing").getAsString();
+        try (Reader reader = new BufferedReader(new InputStreamReader((InputStream) request.getContent(), StandardCharsets.UTF_8))) {
+            if (STREAMING_PARSER)
+                return parseStatus(reader, getMountPoint(key));
+            return parseStatus(new JsonParser().parse(reader).getAsJsonObject()); //from gson
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        } finally {
+            request.disconnect();
+        }
+    }
+
+    /**
+     * Reads a status-json.xsl document token by token until the given mount has been read. Other mounts are skipped
+     * without being built into objects, and the rest of the document is never read.
+     *
+     * @param in The status-json.xsl document.
+     * @param mountPoint Mount point to look for, without the leading '/'.
+     * @return Snapshot holding only the requested mount, or no mounts if the server does not list it.
+     * @throws IOException If the document could not be read.
+     * @see #parseStatus(JsonObject)
+     */
+    static StationStatus parseStatus(Reader in, String mountPoint) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        reader.setLenient(true);
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!reader.nextName().equals("icestats")) {
+                reader.skipValue();
+                continue;
+            }
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("source")) {
+                    reader.skipValue();
+                    continue;
+                }
+
+                StationStatus.Mount mount = null;
+                // Icecast lists a lone mount as an object instead of an array.
+                if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    while (mount == null && reader.hasNext())
+                        mount = readMount(reader, mountPoint);
+                }
+                else if (reader.peek() == JsonToken.BEGIN_OBJECT)
+                    mount = readMount(reader, mountPoint);
+                else
+                    reader.skipValue();
+
+                if (mount != null)
+                    return new StationStatus(Collections.singletonMap(mountPoint, mount));
+                return new StationStatus(Collections.emptyMap());
             }
+            reader.endObject();
         }
 
-        if(type.equalsIgnoreCase("station"))
-            return stationName;
-        if(type.equalsIgnoreCase("song"))
-            return song;
-        if(type.equalsIgnoreCase("artist"))
-            return artist;
-        if(type.equalsIgnoreCase("info"))
-            return fullSongInfo;
+        return new StationStatus(Collections.emptyMap());
+    }
+
+    /**
+     * Reads one source object. Once its listenurl shows it is a different mount, the rest of the object is skipped.
+     *
+     * @param reader Reader positioned at the start of a source object.
+     * @param mountPoint Mount point to look for.
+     * @return The mount, or null if the source is a different mount.
+     * @throws IOException If the document could not be read.
+     */
+    private static StationStatus.Mount readMount(JsonReader reader, String mountPoint) throws IOException {
+        String name = StationStatus.UNKNOWN;
+        String artist = StationStatus.UNKNOWN;
+        String title = StationStatus.UNKNOWN;
+        String currentlyPlaying = StationStatus.UNKNOWN;
+        int listeners = -1;
+        int bitrate = -1;
+        boolean matched = false;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+
+            switch (key) {
+                case "listenurl":
+                    matched = getMountPoint(reader.nextString()).equals(mountPoint);
+                    if (!matched) {
+                        while (reader.hasNext()) {
+                            reader.skipValue();
+                        }
+                        reader.endObject();
+                        return null;
+                    }
+                    break;
+                case "server_name":
+                    name = reader.nextString();
+                    break;
+                case "artist":
+                    artist = reader.nextString();
+                    break;
+                case "title":
+                    title = reader.nextString();
+                    break;
+                case "yp_currently_playing":
+                    currentlyPlaying = reader.nextString();
+                    break;
+                case "listeners":
+                    listeners = nextInt(reader);
+                    break;
+                case "bitrate":
+                    bitrate = nextInt(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
 
+        return matched ? new StationStatus.Mount(mountPoint, name, artist, title, currentlyPlaying, listeners, bitrate) : null;
+    }
 
-        return "N/A";
+    /**
+     * @param reader Reader positioned at a number (or numeric string) value.
+     * @return The value as an int, or -1 if it is not a number.
+     * @throws IOException If the document could not be read.
+     */
+    private static int nextInt(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.NUMBER && reader.peek() != JsonToken.STRING) {
+            reader.skipValue();
+            return -1;
+        }
+        try {
+            return reader.nextInt();
+        } catch (NumberFormatException e) {
+            reader.skipValue();
+            return -1;
+        }
+    }
+
+    /**
+     * Builds a snapshot from a parsed status-json.xsl document.
+     *
+     * @param document The parsed document.
+     * @return Snapshot holding every mount listed in icestats.source.
+     */
+    static StationStatus parseStatus(JsonObject document) {
+        Map<String, StationStatus.Mount> mounts = new HashMap<>();
+        JsonElement sources = document.getAsJsonObject("icestats").get("source");
+
+        // Icecast lists a lone mount as an object instead of an array.
+        if (sources != null && sources.isJsonArray()) {
+            for (JsonElement element : sources.getAsJsonArray())
+                addMount(mounts, element.getAsJsonObject());
+        }
+        else if (sources != null && sources.isJsonObject())
+            addMount(mounts, sources.getAsJsonObject());
+
+        return new StationStatus(mounts);
+    }
+
+    /**
+     * Adds a source object to mounts, keyed by the mount point of its listenurl.
+     *
+     * @param mounts Map to add the mount to.
+     * @param source A source object from icestats.source.
+     */
+    private static void addMount(Map<String, StationStatus.Mount> mounts, JsonObject source) {
+        String listenURL = getString(source, "listenurl", null);
+        if (listenURL == null)
+            return;
+
+        String mountPoint = getMountPoint(listenURL);
+        mounts.put(mountPoint, new StationStatus.Mount(
+                mountPoint,
+                getString(source, "server_name", StationStatus.UNKNOWN),
+                getString(source, "artist", StationStatus.UNKNOWN),
+                getString(source, "title", StationStatus.UNKNOWN),
+                getString(source, "yp_currently_playing", StationStatus.UNKNOWN),
+                getInt(source, "listeners"),
+                getInt(source, "bitrate")
+        ));
+    }
+
+    /**
+     * @param source A source object from icestats.source.
+     * @param key Key of the field.
+     * @param fallback Returned when the field is missing or null.
+     * @return The field as a string.
+     */
+    private static String getString(JsonObject source, String key, String fallback) {
+        JsonElement value = source.get(key);
+        return value != null && !value.isJsonNull() ? value.getAsString() : fallback;
+    }
+
+    /**
+     * @param source A source object from icestats.source.
+     * @param key Key of the field.
+     * @return The field as an int, or -1 if it is missing or not a number.
+     */
+    private static int getInt(JsonObject source, String key) {
+        try {
+            JsonElement value = source.get(key);
+            return value != null && !value.isJsonNull() ? value.getAsInt() : -1;
+        } catch (NumberFormatException | UnsupportedOperationException e) {return -1;}
     }
 
     /**
@@ -113,7 +383,7 @@ class InternetRadioParser {
      * @param url Radio station's mp3 stream.
      * @return Json file from url parameter.
      */
-    private static String getJsonURL(String url){
+    static String getJsonURL(String url){
         if(url.length() < 1)
             return "Invalid URL provided; can't get station info!";
 
@@ -130,7 +400,7 @@ class InternetRadioParser {
      * @param url Radio station's mp3 stream.
      * @return Gets the mounting point of the url parameter.
      */
-    private static String getMountPoint(String url){
+    static String getMountPoint(String url){
         if(url.length() < 1)
             return "Invalid URL provided; can't get mount point!";
 
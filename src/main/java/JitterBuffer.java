@@ -0,0 +1,100 @@
+/**
+ * Fixed-size lookahead buffer of Opus frames between one producer (the filler) and one consumer (JDA's send loop).
+ * Frames are copied into preallocated slots, and out again into an array kept per frame length, so nothing is
+ * allocated once the buffer is warm.
+ */
+class JitterBuffer {
+
+    /**
+     * Largest Opus frame a slot holds. A single Opus frame is at most 1275 bytes.
+     */
+    static final int SLOT_SIZE = 1500;
+
+    private final int depth;
+    private final byte[][] slots;
+    private final int[] lengths;
+    private final byte[][] outputBySize = new byte[SLOT_SIZE + 1][];
+    /**
+     * Number of frames taken so far. Only written by the consumer.
+     */
+    private volatile long head;
+    /**
+     * Number of frames added so far. Only written by the producer.
+     */
+    private volatile long tail;
+
+    /**
+     * @param depth Number of frames the buffer holds.
+     */
+    JitterBuffer(int depth) {
+        this.depth = depth;
+        this.slots = new byte[depth][SLOT_SIZE];
+        this.lengths = new int[depth];
+    }
+
+    /**
+     * @return Number of frames the buffer holds.
+     */
+    int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return Number of frames currently buffered.
+     */
+    int size() {
+        return (int) (tail - head);
+    }
+
+    /**
+     * @return True if no more frames fit.
+     */
+    boolean isFull() {
+        return size() >= depth;
+    }
+
+    /**
+     * Copies a frame into the buffer. Must only be called by the producer, and only when {@link #isFull()} is false.
+     *
+     * @param frame The Opus frame.
+     * @return False if the frame was too big for a slot and was dropped.
+     */
+    boolean offer(byte[] frame) {
+        if (frame.length > SLOT_SIZE)
+            return false;
+
+        int slot = (int) (tail % depth);
+        System.arraycopy(frame, 0, slots[slot], 0, frame.length);
+        lengths[slot] = frame.length;
+        tail = tail + 1;
+        return true;
+    }
+
+    /**
+     * Takes the oldest frame. Must only be called by the consumer. The returned array is reused by a later call.
+     *
+     * @return The frame, or null if the buffer is empty.
+     */
+    byte[] poll() {
+        long current = head;
+        if (current >= tail)
+            return null;
+
+        int slot = (int) (current % depth);
+        int length = lengths[slot];
+        byte[] output = outputBySize[length];
+        if (output == null)
+            output = outputBySize[length] = new byte[length];
+        System.arraycopy(slots[slot], 0, output, 0, length);
+
+        head = current + 1;
+        return output;
+    }
+
+    /**
+     * Drops every buffered frame. Must only be called by the consumer.
+     */
+    void clear() {
+        head = tail;
+    }
+}
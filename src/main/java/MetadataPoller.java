@@ -0,0 +1,281 @@
+import net.dv8tion.jda.core.entities.TextChannel;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls a station's status-json.xsl in the background and keeps the latest status of its mount in memory.<br>
+ * There is one poller per station URL, shared by every guild playing that station. Requests are conditional
+ * (ETag / Last-Modified) and the interval grows while the song stays the same, so an idle station costs almost
+ * nothing. When the song changes, it is announced to every subscribed {@link TextChannel}.<br>
+ * With -DeRadio.icyMetadata=true the song is read from the stream's in-band ICY metadata instead, and
+ * status-json.xsl is only polled when the stream does not carry any.
+ */
+class MetadataPoller {
+
+    /**
+     * Shortest time (in milliseconds) between polls. Set with -DeRadio.pollMin.
+     */
+    private static final long MIN_INTERVAL = Long.getLong("eRadio.pollMin", 5000);
+
+    /**
+     * Longest time (in milliseconds) between polls. Set with -DeRadio.pollMax.
+     */
+    private static final long MAX_INTERVAL = Long.getLong("eRadio.pollMax", 60000);
+
+    /**
+     * Whether to read song changes from the stream's ICY metadata. Set with -DeRadio.icyMetadata=true.
+     */
+    private static final boolean ICY_METADATA = Boolean.getBoolean("eRadio.icyMetadata");
+
+    /**
+     * Pollers keyed by station URL.
+     */
+    private static final Map<String, MetadataPoller> POLLERS = new ConcurrentHashMap<>();
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newScheduledThreadPool(2, r -> {
+        Thread thread = new Thread(r, "eRadio-metadata-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String stationURL;
+    private final Set<String> guilds = ConcurrentHashMap.newKeySet();
+    private final Map<String, TextChannel> subscribers = new ConcurrentHashMap<>();
+
+    private volatile StationStatus.Mount current;
+    private String etag;
+    private String lastModified;
+    private long interval = MIN_INTERVAL;
+    private boolean running;
+    private ScheduledFuture<?> next;
+    private IcyMetadataReader icy;
+
+    /**
+     * @param stationURL Radio station's mp3 stream.
+     */
+    private MetadataPoller(String stationURL) {
+        this.stationURL = stationURL;
+    }
+
+    /**
+     * Registers guild as playing the station and starts polling it if this is the first guild.
+     *
+     * @param stationURL Radio station's mp3 stream.
+     * @param guildId ID of the guild that started playing.
+     * @return The station's poller.
+     */
+    static MetadataPoller acquire(String stationURL, String guildId) {
+        MetadataPoller poller = POLLERS.compute(stationURL, (url, existing) -> {
+            MetadataPoller p = existing != null ? existing : new MetadataPoller(url);
+            p.guilds.add(guildId);
+            return p;
+        });
+        poller.start();
+        return poller;
+    }
+
+    /**
+     * Unregisters guild from the station and stops polling once no guild is left.
+     *
+     * @param stationURL Radio station's mp3 stream.
+     * @param guildId ID of the guild that stopped playing.
+     */
+    static void release(String stationURL, String guildId) {
+        POLLERS.computeIfPresent(stationURL, (url, poller) -> {
+            poller.guilds.remove(guildId);
+            poller.subscribers.values().removeIf(channel -> channel.getGuild().getId().equals(guildId));
+            if (!poller.guilds.isEmpty())
+                return poller;
+            poller.stop();
+            return null;
+        });
+    }
+
+    /**
+     * @param stationURL Radio station's mp3 stream.
+     * @return The station's poller, or null if no guild is playing it.
+     */
+    static MetadataPoller get(String stationURL) {return POLLERS.get(stationURL);}
+
+    /**
+     * @return The last polled status of the station's mount, or null if nothing has been polled yet.
+     */
+    StationStatus.Mount getCurrent() {return current;}
+
+    /**
+     * Toggles whether song changes are announced in channel.
+     *
+     * @param channel {@link TextChannel} to announce song changes in.
+     * @return True if channel is now subscribed, false if it was unsubscribed.
+     */
+    boolean toggleAnnouncements(TextChannel channel) {
+        if (subscribers.remove(channel.getId()) != null)
+            return false;
+        subscribers.put(channel.getId(), channel);
+        return true;
+    }
+
+    private synchronized void start() {
+        if (running)
+            return;
+        running = true;
+
+        if (ICY_METADATA) {
+            icy = new IcyMetadataReader(stationURL, this);
+            icy.start();
+        }
+        else
+            next = SCHEDULER.schedule(this::poll, 0, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void stop() {
+        running = false;
+        if (next != null)
+            next.cancel(false);
+        next = null;
+        if (icy != null)
+            icy.stop();
+        icy = null;
+    }
+
+    /**
+     * Called by {@link IcyMetadataReader} whenever the stream's title changes.
+     *
+     * @param name Station name from the icy-name header, or null if the server did not send one.
+     * @param streamTitle The new StreamTitle, usually "Artist - Title".
+     */
+    void onIcyTitle(String name, String streamTitle) {
+        String artist = StationStatus.UNKNOWN;
+        String title = streamTitle;
+        int separator = streamTitle.indexOf(" - ");
+        if (separator > 0) {
+            artist = streamTitle.substring(0, separator);
+            title = streamTitle.substring(separator + 3);
+        }
+
+        StationStatus.Mount previous = current;
+        update(new StationStatus.Mount(
+                InternetRadioParser.getMountPoint(stationURL),
+                name != null ? name : previous != null ? previous.getName() : StationStatus.UNKNOWN,
+                artist,
+                title,
+                streamTitle,
+                previous != null ? previous.getListeners() : -1,
+                previous != null ? previous.getBitrate() : -1
+        ));
+    }
+
+    /**
+     * Called by {@link IcyMetadataReader} when the stream has no ICY metadata or the connection was lost. Falls back to
+     * polling status-json.xsl.
+     */
+    synchronized void onIcyUnavailable() {
+        icy = null;
+        if (running && next == null)
+            next = SCHEDULER.schedule(this::poll, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Fetches the status if it changed, announces a new song, and schedules the next poll.
+     */
+    private void poll() {
+        boolean changed = false;
+        long start = System.nanoTime();
+        try {
+            StationStatus.Mount mount = fetch();
+            Metrics.METADATA_FETCH.record(System.nanoTime() - start);
+            if (mount != null)
+                changed = update(mount);
+        } catch (Exception e) {
+            Metrics.METADATA_ERRORS.increment();
+            System.out.println("Could not poll " + stationURL + ": " + e.getMessage());
+        }
+
+        synchronized (this) {
+            if (!running)
+                return;
+            interval = changed ? MIN_INTERVAL : Math.min(MAX_INTERVAL, interval + interval / 2);
+            next = SCHEDULER.schedule(this::poll, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stores mount as the current status and announces it if the song changed.
+     *
+     * @param mount The station's latest mount status.
+     * @return True if the song changed.
+     */
+    private boolean update(StationStatus.Mount mount) {
+        StationStatus.Mount previous = current;
+        current = mount;
+        boolean changed = previous != null && !songOf(previous).equals(songOf(mount));
+        if (changed)
+            announce(mount);
+        return changed;
+    }
+
+    /**
+     * Makes a conditional request for the station's status-json.xsl.
+     *
+     * @return The station's mount, or null if the document was not modified or does not list the mount.
+     * @throws IOException If the server could not be reached or the document could not be read.
+     */
+    private StationStatus.Mount fetch() throws IOException {
+        HttpURLConnection request = (HttpURLConnection) new URL(InternetRadioParser.getJsonURL(stationURL)).openConnection();
+        try {
+            request.setConnectTimeout(InternetRadioParser.CONNECT_TIMEOUT);
+            request.setReadTimeout(InternetRadioParser.READ_TIMEOUT);
+            if (etag != null)
+                request.setRequestProperty("If-None-Match", etag);
+            if (lastModified != null)
+                request.setRequestProperty("If-Modified-Since", lastModified);
+
+            if (request.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED)
+                return null;
+
+            etag = request.getHeaderField("ETag");
+            lastModified = request.getHeaderField("Last-Modified");
+
+            try (Reader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+                String mountPoint = InternetRadioParser.getMountPoint(stationURL);
+                return InternetRadioParser.parseStatus(reader, mountPoint).getMount(mountPoint);
+            }
+        } finally {
+            request.disconnect();
+        }
+    }
+
+    /**
+     * Sends the new song to every subscribed channel.
+     *
+     * @param mount The station's mount with the new song.
+     */
+    private void announce(StationStatus.Mount mount) {
+        String message = "**Now Playing on " + mount.getName() + ":** " + songOf(mount);
+        for (TextChannel channel : subscribers.values())
+            channel.sendMessage(message).queue();
+    }
+
+    /**
+     * @param mount A station's mount.
+     * @return "Artist - Title" if both are known, otherwise the mount's full song info.
+     */
+    static String songOf(StationStatus.Mount mount) {
+        if (!mount.getArtist().equalsIgnoreCase(StationStatus.UNKNOWN) || !mount.getTitle().equalsIgnoreCase(StationStatus.UNKNOWN))
+            return mount.getArtist() + " - " + mount.getTitle();
+        return mount.getCurrentlyPlaying();
+    }
+}
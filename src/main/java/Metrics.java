@@ -0,0 +1,205 @@
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Registry of the bot's counters, gauges and histograms.<br>
+ * Counters are {@link LongAdder}s and histograms are {@link Histogram}s, so updating them does not allocate or take
+ * a lock and is safe on the 20 ms send path. Everything is readable through JMX as eRadio:type=Metrics, and in the
+ * Prometheus text format from http://127.0.0.1:&lt;port&gt;/metrics when -DeRadio.metricsPort is set.
+ */
+final class Metrics {
+
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentSkipListMap<>();
+    private static final Map<String, LongSupplier> GAUGES = new ConcurrentSkipListMap<>();
+    private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentSkipListMap<>();
+
+    /**
+     * Opus frames handed to JDA.
+     */
+    static final LongAdder FRAMES_PROVIDED = counter("eradio_frames_provided_total");
+
+    /**
+     * Times a playing guild had no frame ready when JDA asked for one.
+     */
+    static final LongAdder FRAMES_MISSED = counter("eradio_frames_missed_total");
+
+    /**
+     * How long (in nanoseconds) each status-json.xsl fetch took.
+     */
+    static final Histogram METADATA_FETCH = histogram("eradio_metadata_fetch_nanoseconds");
+
+    /**
+     * Failed status-json.xsl fetches.
+     */
+    static final LongAdder METADATA_ERRORS = counter("eradio_metadata_errors_total");
+
+    /**
+     * How long (in nanoseconds) each command took to handle on the JDA event thread.
+     */
+    static final Histogram COMMANDS = histogram("eradio_command_nanoseconds");
+
+    /**
+     * How long (in nanoseconds) each command's background work took.
+     */
+    static final Histogram ASYNC_COMMANDS = histogram("eradio_async_command_nanoseconds");
+
+    private Metrics() {}
+
+    /**
+     * @param name Name of the counter.
+     * @return The counter registered under name, created if needed.
+     */
+    static LongAdder counter(String name) {
+        return COUNTERS.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    /**
+     * @param name Name of the histogram.
+     * @return The histogram registered under name, created if needed.
+     */
+    static Histogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, n -> new Histogram());
+    }
+
+    /**
+     * @param name Name of the gauge.
+     * @param value Reads the gauge's current value. Replaces any gauge already registered under name.
+     */
+    static void gauge(String name, LongSupplier value) {
+        GAUGES.put(name, value);
+    }
+
+    /**
+     * @return Every metric as a flat name to value map. Histograms are split into _count, _sum, _max, _p50 and _p99.
+     */
+    static Map<String, Long> snapshot() {
+        Map<String, Long> values = new TreeMap<>();
+        COUNTERS.forEach((name, counter) -> values.put(name, counter.sum()));
+        GAUGES.forEach((name, gauge) -> values.put(name, gauge.getAsLong()));
+        HISTOGRAMS.forEach((name, histogram) -> {
+            values.put(name + "_count", histogram.getCount());
+            values.put(name + "_sum", histogram.getSum());
+            values.put(name + "_max", histogram.getMax());
+            values.put(name + "_p50", histogram.getPercentile(50));
+            values.put(name + "_p99", histogram.getPercentile(99));
+        });
+        return values;
+    }
+
+    /**
+     * @return Every metric in the Prometheus text format.
+     */
+    static String scrape() {
+        StringBuilder out = new StringBuilder();
+        COUNTERS.forEach((name, counter) ->
+                out.append("# TYPE ").append(name).append(" counter\n").append(name).append(' ').append(counter.sum()).append('\n'));
+        GAUGES.forEach((name, gauge) ->
+                out.append("# TYPE ").append(name).append(" gauge\n").append(name).append(' ').append(gauge.getAsLong()).append('\n'));
+        HISTOGRAMS.forEach((name, histogram) -> out
+                .append("# TYPE ").append(name).append(" summary\n")
+                .append(name).append("{quantile=\"0.5\"} ").append(histogram.getPercentile(50)).append('\n')
+                .append(name).append("{quantile=\"0.99\"} ").append(histogram.getPercentile(99)).append('\n')
+                .append(name).append("_sum ").append(histogram.getSum()).append('\n')
+                .append(name).append("_count ").append(histogram.getCount()).append('\n'));
+        return out.toString();
+    }
+
+    /**
+     * Registers the JMX bean and, if -DeRadio.metricsPort is set, starts the scrape endpoint on the loopback address.
+     */
+    static void start() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsBean(), new ObjectName("eRadio:type=Metrics"));
+        } catch (Exception e) {
+            System.out.println("Could not register metrics with JMX: " + e.getMessage());
+        }
+
+        int port = Integer.getInteger("eRadio.metricsPort", 0);
+        if (port <= 0)
+            return;
+
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            server.createContext("/metrics", exchange -> {
+                byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+        } catch (IOException e) {
+            System.out.println("Could not start the metrics endpoint on port " + port + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Read-only JMX view of {@link #snapshot()}. Attributes are read when asked for, so nothing is copied ahead of time.
+     */
+    private static final class MetricsBean implements DynamicMBean {
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Long value = snapshot().get(attribute);
+            if (value == null)
+                throw new AttributeNotFoundException(attribute);
+            return value;
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            Map<String, Long> values = snapshot();
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                if (values.containsKey(attribute))
+                    list.add(new Attribute(attribute, values.get(attribute)));
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) {
+            throw new UnsupportedOperationException("eRadio metrics are read-only.");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) {
+            throw new UnsupportedOperationException("eRadio metrics have no operations.");
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (String name : snapshot().keySet())
+                attributes.add(new MBeanAttributeInfo(name, "java.lang.Long", name, true, false, false));
+            return new MBeanInfo(Metrics.class.getName(), "eRadio metrics",
+                    attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[0], null);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Which of the bot's shards this process runs.<br>
+ * The total is set with -DeRadio.shards (1 by default, meaning no sharding). The range is set with
+ * -DeRadio.shardRange=first-last (or a single shard number), or looked up in a partition file given with
+ * -DeRadio.shardPartition. Each line of the file is "name=first-last", '#' starts a comment, and
+ * -DeRadio.shardProcess picks the line. Without either, the process runs every shard.
+ */
+final class ShardRange {
+
+    private final int total;
+    private final int first;
+    private final int last;
+
+    /**
+     * @param total Total number of shards.
+     * @param first First shard this process runs.
+     * @param last Last shard this process runs.
+     * @throws IllegalArgumentException If the range is empty or outside 0 to total - 1.
+     */
+    ShardRange(int total, int first, int last) {
+        if (total < 1 || first < 0 || first > last || last >= total)
+            throw new IllegalArgumentException("Invalid shard range " + first + "-" + last + " of " + total + " shards.");
+        this.total = total;
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * @return The range set by the system properties.
+     * @throws IllegalArgumentException If the properties do not describe a valid range.
+     * @throws UncheckedIOException If the partition file could not be read.
+     */
+    static ShardRange fromSystemProperties() {
+        int total = Integer.getInteger("eRadio.shards", 1);
+        String range = System.getProperty("eRadio.shardRange");
+
+        String partition = System.getProperty("eRadio.shardPartition");
+        if (partition != null) {
+            String process = System.getProperty("eRadio.shardProcess");
+            if (process == null)
+                throw new IllegalArgumentException("-DeRadio.shardPartition needs -DeRadio.shardProcess.");
+            range = readPartition(partition, process);
+        }
+
+        if (range == null)
+            return new ShardRange(total, 0, total - 1);
+
+        try {
+            int split = range.indexOf('-');
+            if (split < 0)
+                return new ShardRange(total, Integer.parseInt(range.trim()), Integer.parseInt(range.trim()));
+            return new ShardRange(total, Integer.parseInt(range.substring(0, split).trim()), Integer.parseInt(range.substring(split + 1).trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid shard range: " + range);
+        }
+    }
+
+    /**
+     * @param file Path of the partition file.
+     * @param process Name of this process in the file.
+     * @return The process's range.
+     */
+    private static String readPartition(String file, String process) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(Paths.get(file));
+        } catch (IOException e) {throw new UncheckedIOException(e);}
+
+        for (String line : lines) {
+            int comment = line.indexOf('#');
+            if (comment >= 0)
+                line = line.substring(0, comment);
+
+            int split = line.indexOf('=');
+            if (split > 0 && line.substring(0, split).trim().equals(process))
+                return line.substring(split + 1).trim();
+        }
+        throw new IllegalArgumentException(file + " has no shards for " + process + ".");
+    }
+
+    /**
+     * @return Total number of shards.
+     */
+    int getTotal() {
+        return total;
+    }
+
+    /**
+     * @return First shard this process runs.
+     */
+    int getFirst() {
+        return first;
+    }
+
+    /**
+     * @return Last shard this process runs.
+     */
+    int getLast() {
+        return last;
+    }
+
+    /**
+     * @return True if the bot is split into more than one shard.
+     */
+    boolean isSharded() {
+        return total > 1;
+    }
+}
@@ -0,0 +1,239 @@
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrame;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Plays one station with a single {@link AudioPlayer} and shares its Opus frames with every guild listening to it.<br>
+ * Every 20 ms the broadcaster pulls one frame from its player into a ring buffer. Each guild reads the ring through
+ * its own {@link Cursor}, so the station is streamed, decoded and encoded once no matter how many guilds play it.
+ */
+class StationBroadcaster {
+
+    /**
+     * Number of frames kept in the ring (50 frames = 1 second). Set with -DeRadio.broadcastFrames.
+     */
+    private static final int RING_SIZE = Math.max(8, Integer.getInteger("eRadio.broadcastFrames", 50));
+
+    /**
+     * How many frames behind the newest frame a cursor starts (or restarts after falling behind), so a guild has a
+     * little audio buffered from the start.
+     */
+    private static final int JOIN_LEAD = 3;
+
+    /**
+     * Broadcasters keyed by station URL.
+     */
+    private static final Map<String, StationBroadcaster> BROADCASTERS = new ConcurrentHashMap<>();
+
+    private static final ScheduledExecutorService PUMP = Executors.newScheduledThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2), r -> {
+                Thread thread = new Thread(r, "eRadio-broadcast");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MAX_PRIORITY);
+                return thread;
+            });
+
+    private final String stationURL;
+    private final AudioPlayer player;
+    private final TrackScheduler scheduler;
+    private final Set<String> guilds = ConcurrentHashMap.newKeySet();
+    private final CompletableFuture<AudioTrack> track = new CompletableFuture<>();
+    private final AtomicBoolean loading = new AtomicBoolean();
+    private final AtomicReferenceArray<byte[]> ring = new AtomicReferenceArray<>(RING_SIZE);
+    /**
+     * Sequence number of the next frame to be written. Frame n is in slot n % RING_SIZE.
+     */
+    private volatile long written;
+    private ScheduledFuture<?> pump;
+    private boolean stopped;
+
+    /**
+     * A guild's position in the ring.
+     */
+    class Cursor {
+        private long position = Math.max(0, written - JOIN_LEAD);
+        private long skipped;
+
+        /**
+         * @return The next frame for this guild, or null if the broadcaster has no new frame yet.
+         */
+        byte[] next() {
+            long newest = written;
+            if (position >= newest)
+                return null;
+
+            // Fell so far behind that the frame was overwritten; skip ahead instead of playing old audio.
+            if (newest - position >= RING_SIZE - 1)
+                skipTo(newest - JOIN_LEAD);
+
+            byte[] frame = ring.get((int) (position % RING_SIZE));
+            if (written - position >= RING_SIZE) {
+                skipTo(written - JOIN_LEAD);
+                return null;
+            }
+
+            position++;
+            return frame;
+        }
+
+        private void skipTo(long target) {
+            skipped += target - position;
+            position = target;
+        }
+
+        /**
+         * @return How many frames this cursor skipped because it fell too far behind.
+         */
+        long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * @return How many frames this cursor is behind the newest frame.
+         */
+        long getLag() {
+            return written - position;
+        }
+    }
+
+    /**
+     * @param manager Manager used to create the player.
+     * @param stationURL Radio station's mp3 stream.
+     */
+    private StationBroadcaster(AudioPlayerManager manager, String stationURL) {
+        this.stationURL = stationURL;
+        this.player = manager.createPlayer();
+
+        // Reconnects the shared stream when it drops.
+        scheduler = new TrackScheduler(player);
+        scheduler.setLoader(TrackScheduler.loaderFor(manager, this));
+        player.addListener(scheduler);
+    }
+
+    /**
+     * Loads the station and starts playing it, unless that has already been done.
+     *
+     * @param stations Cache the station is loaded from.
+     */
+    private void load(StationCache stations) {
+        if (!loading.compareAndSet(false, true))
+            return;
+
+        stations.load(stationURL).whenComplete((loaded, error) -> {
+            if (error != null) {
+                fail(StationCache.unwrap(error));
+                return;
+            }
+            player.playTrack(loaded);
+            start();
+            track.complete(loaded);
+        });
+    }
+
+    /**
+     * Registers guild as a listener of the station, creating and loading the broadcaster if it is the first one.
+     *
+     * @param manager Manager used to create the player.
+     * @param stations Cache the station is loaded from.
+     * @param stationURL Radio station's mp3 stream.
+     * @param guildId ID of the guild that started playing.
+     * @return The station's broadcaster.
+     */
+    static StationBroadcaster acquire(AudioPlayerManager manager, StationCache stations, String stationURL, String guildId) {
+        StationBroadcaster broadcaster = BROADCASTERS.compute(stationURL, (url, existing) -> {
+            StationBroadcaster b = existing != null ? existing : new StationBroadcaster(manager, url);
+            b.guilds.add(guildId);
+            return b;
+        });
+        broadcaster.load(stations);
+        return broadcaster;
+    }
+
+    /**
+     * Unregisters guild from the station, and stops the broadcaster once no guild is left.
+     *
+     * @param stationURL Radio station's mp3 stream.
+     * @param guildId ID of the guild that stopped playing.
+     */
+    static void release(String stationURL, String guildId) {
+        BROADCASTERS.computeIfPresent(stationURL, (url, broadcaster) -> {
+            broadcaster.guilds.remove(guildId);
+            if (!broadcaster.guilds.isEmpty())
+                return broadcaster;
+            broadcaster.shutdown();
+            return null;
+        });
+    }
+
+    /**
+     * @return Number of stations being broadcast.
+     */
+    static int count() {
+        return BROADCASTERS.size();
+    }
+
+    /**
+     * @return Future that completes with the station's track once it has loaded and started.
+     */
+    CompletableFuture<AudioTrack> getTrack() {
+        return track;
+    }
+
+    /**
+     * @return A cursor that starts at the newest frames.
+     */
+    Cursor newCursor() {
+        return new Cursor();
+    }
+
+    private synchronized void start() {
+        if (pump == null && !stopped)
+            pump = PUMP.scheduleAtFixedRate(this::pull, 0, 20, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void shutdown() {
+        stopped = true;
+        if (pump != null)
+            pump.cancel(false);
+        pump = null;
+        scheduler.clear();
+        player.destroy();
+    }
+
+    /**
+     * Fails the load and forgets this broadcaster, so the next -play tries again.
+     *
+     * @param exception Why the station could not be loaded.
+     */
+    private void fail(FriendlyException exception) {
+        BROADCASTERS.remove(stationURL, this);
+        shutdown();
+        track.completeExceptionally(exception);
+    }
+
+    /**
+     * Moves one frame from the player into the ring.
+     */
+    private void pull() {
+        AudioFrame frame = player.provide();
+        if (frame == null)
+            return;
+
+        long sequence = written;
+        ring.set((int) (sequence % RING_SIZE), frame.getData());
+        written = sequence + 1;
+    }
+}
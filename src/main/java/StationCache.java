@@ -0,0 +1,140 @@
+import com.sedmelluq.discord.lavaplayer.player.AudioLoadResultHandler;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Resolved station tracks, keyed by station URL.<br>
+ * Loading a station goes through lavaplayer's source detection (content-type probing, PLS/M3U indirection), so each
+ * station is resolved once and every play gets a clone of the resolved track. A resolution older than
+ * {@link #TTL} is still handed out while a single background load refreshes it. A failed resolution is not kept,
+ * so the next play tries again.
+ */
+class StationCache {
+
+    /**
+     * How long (in milliseconds) a resolved station is used before it is resolved again. Set with
+     * -DeRadio.stationCacheTTL.
+     */
+    private static final long TTL = Long.getLong("eRadio.stationCacheTTL", 3600000);
+
+    /**
+     * A station's resolution and when it was started.
+     */
+    private static final class Entry {
+        final CompletableFuture<AudioTrack> track;
+        final long loadedAt = System.currentTimeMillis();
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(CompletableFuture<AudioTrack> track) {
+            this.track = track;
+        }
+    }
+
+    private final AudioPlayerManager manager;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param manager Manager used to resolve stations.
+     */
+    StationCache(AudioPlayerManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Starts resolving every station in the background.
+     *
+     * @param stationURLs URLs of the stations.
+     */
+    void prewarm(Collection<String> stationURLs) {
+        for (String url : stationURLs) {
+            load(url).whenComplete((track, error) -> {
+                if (error != null)
+                    System.out.println("Could not pre-load " + url + ": " + error.getMessage());
+            });
+        }
+    }
+
+    /**
+     * @param stationURL Radio station's stream.
+     * @return Future that completes with a fresh clone of the station's track, or fails with a
+     * {@link FriendlyException} if the station could not be loaded.
+     */
+    CompletableFuture<AudioTrack> load(String stationURL) {
+        Entry entry = entries.compute(stationURL, (url, existing) -> {
+            if (existing == null || existing.track.isCompletedExceptionally())
+                return new Entry(resolve(url));
+            return existing;
+        });
+
+        if (System.currentTimeMillis() - entry.loadedAt > TTL && entry.track.isDone() && entry.refreshing.compareAndSet(false, true))
+            refresh(stationURL, entry);
+
+        return entry.track.thenApply(AudioTrack::makeClone);
+    }
+
+    /**
+     * Resolves the station again, replacing entry once that succeeds. Keeps entry if it fails.
+     */
+    private void refresh(String stationURL, Entry entry) {
+        Entry refreshed = new Entry(resolve(stationURL));
+        refreshed.track.whenComplete((track, error) -> {
+            if (error == null)
+                entries.replace(stationURL, entry, refreshed);
+            else
+                entry.refreshing.set(false);
+        });
+    }
+
+    /**
+     * @param stationURL Radio station's stream.
+     * @return Future that completes with the station's track, or its first track if the URL is a playlist.
+     */
+    private CompletableFuture<AudioTrack> resolve(String stationURL) {
+        CompletableFuture<AudioTrack> track = new CompletableFuture<>();
+        manager.loadItem(stationURL, new AudioLoadResultHandler() {
+            @Override
+            public void trackLoaded(AudioTrack loaded) {
+                track.complete(loaded);
+            }
+
+            @Override
+            public void playlistLoaded(AudioPlaylist playlist) {
+                if (!playlist.getTracks().isEmpty())
+                    track.complete(playlist.getTracks().get(0));
+                else
+                    noMatches();
+            }
+
+            @Override
+            public void noMatches() {
+                track.completeExceptionally(new FriendlyException(stationURL + " could not be found!", FriendlyException.Severity.COMMON, null));
+            }
+
+            @Override
+            public void loadFailed(FriendlyException exception) {
+                track.completeExceptionally(exception);
+            }
+        });
+        return track;
+    }
+
+    /**
+     * @param error Error a {@link #load(String)} future failed with.
+     * @return The {@link FriendlyException} behind it.
+     */
+    static FriendlyException unwrap(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof FriendlyException)
+            return (FriendlyException) cause;
+        return new FriendlyException(cause.getMessage(), FriendlyException.Severity.FAULT, cause);
+    }
+}
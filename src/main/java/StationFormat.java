@@ -0,0 +1,305 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * What a station streams, and whether its Opus packets can go to Discord as they are.<br>
+ * lavaplayer forwards Ogg/Opus and WebM/Opus packets without decoding them when they already match its output format
+ * ({@link #PASSTHROUGH_CHANNELS} channels, 48 kHz, {@link #PASSTHROUGH_FRAME_MS} ms packets), the player is at 100%
+ * volume and no filters are set. Otherwise it decodes and re-encodes them like any other codec. This reads the start of
+ * each station's stream (the Ogg headers and first packet, or the WebM track entry and first block) to tell which
+ * path a station takes, so it can be reported and kept in mind when changing a guild's volume.
+ */
+final class StationFormat {
+
+    /**
+     * Channel count Discord's Opus frames have.
+     */
+    private static final int PASSTHROUGH_CHANNELS = 2;
+
+    /**
+     * Length (in milliseconds) of each Opus packet JDA sends.
+     */
+    private static final int PASSTHROUGH_FRAME_MS = 20;
+
+    /**
+     * Most bytes read from a stream before giving up on finding its first audio packet. The Ogg comment header can
+     * hold cover art, so this is generous.
+     */
+    private static final int PROBE_LIMIT = 512 * 1024;
+
+    private static final Map<String, StationFormat> FORMATS = new ConcurrentHashMap<>();
+
+    private static final ExecutorService PROBES = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "eRadio-format-probe");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String codec;
+    private final boolean passthrough;
+    private final String reason;
+
+    private StationFormat(String codec, boolean passthrough, String reason) {
+        this.codec = codec;
+        this.passthrough = passthrough;
+        this.reason = reason;
+    }
+
+    /**
+     * Probes the station in the background and prints which path its audio takes.
+     *
+     * @param stationURL Radio station's stream.
+     */
+    static void detect(String stationURL) {
+        PROBES.execute(() -> {
+            StationFormat format = probe(stationURL);
+            FORMATS.put(stationURL, format);
+            System.out.println(stationURL + " streams " + format.codec + "; " + (format.passthrough ?
+                    "its packets are sent without re-encoding at 100% volume." :
+                    "it is decoded and re-encoded (" + format.reason + ")."));
+        });
+    }
+
+    /**
+     * @param stationURL Radio station's stream.
+     * @return The station's format, or null if it has not been probed (yet).
+     */
+    static StationFormat get(String stationURL) {
+        return FORMATS.get(stationURL);
+    }
+
+    /**
+     * @return Number of probed stations whose packets are passed through.
+     */
+    static long countPassthrough() {
+        return FORMATS.values().stream().filter(format -> format.passthrough).count();
+    }
+
+    /**
+     * @return Name of the codec, e.g. "Ogg/Opus".
+     */
+    String getCodec() {
+        return codec;
+    }
+
+    /**
+     * @return True if lavaplayer can send the station's packets as they are at 100% volume.
+     */
+    boolean isPassthrough() {
+        return passthrough;
+    }
+
+    /**
+     * @param stationURL Radio station's stream.
+     * @return What the start of the stream says about its format.
+     */
+    static StationFormat probe(String stationURL) {
+        try {
+            HttpURLConnection request = (HttpURLConnection) new URL(stationURL).openConnection();
+            request.setConnectTimeout(InternetRadioParser.CONNECT_TIMEOUT);
+            request.setReadTimeout(InternetRadioParser.CONNECT_TIMEOUT);
+            try (InputStream in = new BufferedInputStream(request.getInputStream())) {
+                DataInputStream data = new DataInputStream(in);
+                byte[] magic = new byte[4];
+                in.mark(magic.length);
+                data.readFully(magic);
+                in.reset();
+
+                if (magic[0] == 'O' && magic[1] == 'g' && magic[2] == 'g' && magic[3] == 'S')
+                    return probeOgg(data);
+                if ((magic[0] & 0xFF) == 0x1A && magic[1] == 0x45 && (magic[2] & 0xFF) == 0xDF && (magic[3] & 0xFF) == 0xA3)
+                    return probeWebm(data);
+                String type = request.getContentType();
+                return new StationFormat(type != null ? type : "an unknown format", false, "not Opus");
+            } finally {
+                request.disconnect();
+            }
+        } catch (IOException e) {
+            return new StationFormat("an unknown format", false, "could not read the stream: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads Ogg pages up to the first audio packet: packet 0 is OpusHead, packet 1 OpusTags.
+     */
+    private static StationFormat probeOgg(DataInputStream in) throws IOException {
+        int channels = 0;
+        int packet = 0;
+        // True while the next segment continues a packet rather than starting one.
+        boolean continued = false;
+        byte[] head = new byte[10];
+
+        for (int total = 0; total < PROBE_LIMIT; ) {
+            byte[] header = new byte[27];
+            in.readFully(header);
+            if (header[0] != 'O' || header[1] != 'g' || header[2] != 'g' || header[3] != 'S')
+                return new StationFormat("Ogg", false, "the stream is not valid Ogg");
+
+            int[] lacing = new int[header[26] & 0xFF];
+            for (int i = 0; i < lacing.length; i++)
+                lacing[i] = in.readUnsignedByte();
+            total += header.length + lacing.length;
+
+            for (int segment : lacing) {
+                byte[] data = new byte[segment];
+                in.readFully(data);
+                total += segment;
+
+                if (!continued && packet == 0) {
+                    System.arraycopy(data, 0, head, 0, Math.min(data.length, head.length));
+                    if (!new String(head, 0, 8, StandardCharsets.US_ASCII).equals("OpusHead"))
+                        return new StationFormat("Ogg (not Opus)", false, "not Opus");
+                    channels = head[9] & 0xFF;
+                }
+                else if (!continued && packet == 2) {
+                    if (data.length == 0)
+                        return new StationFormat("Ogg/Opus", false, "its first packet is empty");
+                    return opus("Ogg/Opus", channels, data);
+                }
+
+                continued = segment == 255;
+                if (!continued)
+                    packet++;
+            }
+        }
+        return new StationFormat("Ogg/Opus", false, "no audio in the first " + PROBE_LIMIT / 1024 + " KB");
+    }
+
+    private static final long SEGMENT = 0x18538067L;
+    private static final long TRACKS = 0x1654AE6BL;
+    private static final long TRACK_ENTRY = 0xAEL;
+    private static final long AUDIO = 0xE1L;
+    private static final long CLUSTER = 0x1F43B675L;
+    private static final long BLOCK_GROUP = 0xA0L;
+    private static final long CODEC_ID = 0x86L;
+    private static final long CHANNELS = 0x9FL;
+    private static final long SIMPLE_BLOCK = 0xA3L;
+    private static final long BLOCK = 0xA1L;
+
+    /**
+     * Walks the EBML elements in stream order, stepping into the master elements that lead to the track's codec and
+     * first block and skipping everything else. Live streams leave Segment and Cluster sizes unknown, which does not
+     * matter since they are stepped into rather than skipped.
+     */
+    private static StationFormat probeWebm(DataInputStream in) throws IOException {
+        String codecId = null;
+        int channels = 1;
+
+        for (long total = 0; total < PROBE_LIMIT; ) {
+            long[] id = readVint(in, false);
+            long[] size = readVint(in, true);
+            total += id[1] + size[1];
+
+            if (id[0] == SEGMENT || id[0] == TRACKS || id[0] == TRACK_ENTRY || id[0] == AUDIO || id[0] == CLUSTER || id[0] == BLOCK_GROUP)
+                continue;
+            if (size[0] < 0 || size[0] > PROBE_LIMIT)
+                break;
+
+            byte[] data = new byte[(int) size[0]];
+            in.readFully(data);
+            total += data.length;
+
+            if (id[0] == CODEC_ID) {
+                codecId = new String(data, StandardCharsets.US_ASCII).trim();
+                if (!codecId.equals("A_OPUS"))
+                    return new StationFormat("WebM (" + codecId + ")", false, "not Opus");
+            }
+            else if (id[0] == CHANNELS)
+                channels = (int) unsigned(data);
+            else if ((id[0] == SIMPLE_BLOCK || id[0] == BLOCK) && codecId != null) {
+                // Track number (a vint), 2 bytes of timecode and 1 byte of flags come before the packet.
+                int offset = Long.numberOfLeadingZeros(data.length > 0 ? data[0] & 0xFFL : 1) - 55 + 3;
+                if (offset >= data.length)
+                    return new StationFormat("WebM/Opus", false, "its first block is empty");
+                byte[] packet = new byte[data.length - offset];
+                System.arraycopy(data, offset, packet, 0, packet.length);
+                return opus("WebM/Opus", channels, packet);
+            }
+        }
+        return new StationFormat(codecId != null ? "WebM/Opus" : "WebM", false,
+                "no audio in the first " + PROBE_LIMIT / 1024 + " KB");
+    }
+
+    /**
+     * @param codec Name of the codec.
+     * @param channels The stream's channel count.
+     * @param packet First audio packet.
+     * @return Whether the packets match what JDA sends.
+     */
+    private static StationFormat opus(String codec, int channels, byte[] packet) {
+        int frameMs = packetMillis(packet);
+        if (channels != PASSTHROUGH_CHANNELS)
+            return new StationFormat(codec, false, channels + " channels");
+        if (frameMs != PASSTHROUGH_FRAME_MS)
+            return new StationFormat(codec, false, frameMs > 0 ? frameMs + " ms packets" : "packets of odd lengths");
+        return new StationFormat(codec, true, null);
+    }
+
+    /**
+     * @param packet An Opus packet.
+     * @return The packet's length in whole milliseconds (from its TOC byte, RFC 6716 section 3.1), or 0 if it is not a
+     * whole number.
+     */
+    static int packetMillis(byte[] packet) {
+        int toc = packet[0] & 0xFF;
+        int config = toc >> 3;
+        // Frame length in tenths of a millisecond.
+        int frame;
+        if (config < 12)
+            frame = new int[]{100, 200, 400, 600}[config & 3];
+        else if (config < 16)
+            frame = new int[]{100, 200}[config & 1];
+        else
+            frame = new int[]{25, 50, 100, 200}[config & 3];
+
+        int frames;
+        switch (toc & 3) {
+            case 0: frames = 1; break;
+            case 3: frames = packet.length > 1 ? packet[1] & 0x3F : 0; break;
+            default: frames = 2;
+        }
+
+        int tenths = frame * frames;
+        return tenths % 10 == 0 ? tenths / 10 : 0;
+    }
+
+    /**
+     * @param in Stream positioned at an EBML ID or size.
+     * @param size True to strip the length marker (for sizes) and report an all-ones size as unknown (-1).
+     * @return The value and the number of bytes it took.
+     */
+    private static long[] readVint(DataInputStream in, boolean size) throws IOException {
+        int first = in.read();
+        if (first < 0)
+            throw new EOFException();
+        int length = Integer.numberOfLeadingZeros(first) - 23;
+        if (length < 1 || length > 8)
+            throw new IOException("Invalid EBML element");
+
+        long value = size ? first & (0xFF >> length) : first;
+        boolean unknown = size && value == (0xFF >> length);
+        for (int i = 1; i < length; i++) {
+            int next = in.readUnsignedByte();
+            value = value << 8 | next;
+            unknown &= next == 0xFF;
+        }
+        return new long[]{unknown ? -1 : value, length};
+    }
+
+    private static long unsigned(byte[] data) {
+        long value = 0;
+        for (byte b : data)
+            value = value << 8 | (b & 0xFF);
+        return value;
+    }
+}
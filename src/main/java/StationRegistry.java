@@ -0,0 +1,99 @@
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The stations one bot serves, and which one each guild has selected.<br>
+ * Stations are given as "name=url", or as just the url, in which case the name is the url's mount point. Names are
+ * case-insensitive. The first station is the default for guilds that have not selected one, or whose selection is no
+ * longer configured. Selections are kept in the {@link GuildSettingsStore}.
+ */
+class StationRegistry {
+
+    /**
+     * Station URLs keyed by lower case name, in the order they were given.
+     */
+    private final Map<String, String> stations = new LinkedHashMap<>();
+
+    /**
+     * Holds the station each guild has selected. Guilds using the default have none.
+     */
+    private final GuildSettingsStore settings;
+
+    private final String defaultName;
+
+    /**
+     * @param entries The stations, each "name=url" or a url. Blank entries are ignored.
+     * @param settings Where each guild's selection is kept.
+     * @throws IllegalArgumentException If no station was given.
+     */
+    StationRegistry(List<String> entries, GuildSettingsStore settings) {
+        this.settings = settings;
+        for (String entry : entries) {
+            entry = entry.trim();
+            if (entry.isEmpty())
+                continue;
+
+            int split = entry.indexOf('=');
+            // A url can contain '=' in its query, so only treat it as "name=url" if the name has no ':' or '/'.
+            boolean named = split > 0 && entry.substring(0, split).matches("[^:/]+");
+            String url = named ? entry.substring(split + 1).trim() : entry;
+            String name = (named ? entry.substring(0, split).trim() : InternetRadioParser.getMountPoint(url).split("\\?")[0]).toLowerCase();
+
+            if (stations.putIfAbsent(name, url) != null)
+                System.out.println("Ignoring station " + entry + "; there is already a station called " + name + ".");
+        }
+
+        if (stations.isEmpty())
+            throw new IllegalArgumentException("No radio station was given.");
+        defaultName = stations.keySet().iterator().next();
+    }
+
+    /**
+     * @return Names of every station, default first.
+     */
+    Set<String> getNames() {
+        return Collections.unmodifiableSet(stations.keySet());
+    }
+
+    /**
+     * @param name Name of a station, in any case.
+     * @return The station's URL, or null if there is no such station.
+     */
+    String getURL(String name) {
+        return stations.get(name.toLowerCase());
+    }
+
+    /**
+     * @param guildId ID of the guild.
+     * @return Name of the station the guild has selected, or of the default station.
+     */
+    String getSelection(String guildId) {
+        String name = settings.get(guildId).getStation();
+        return name != null && stations.containsKey(name) ? name : defaultName;
+    }
+
+    /**
+     * @param guildId ID of the guild.
+     * @return URL of the station the guild has selected, or of the default station.
+     */
+    String getSelectedURL(String guildId) {
+        return stations.get(getSelection(guildId));
+    }
+
+    /**
+     * @param guildId ID of the guild.
+     * @param name Name of the station, in any case.
+     * @return False if there is no such station.
+     */
+    boolean select(String guildId, String name) {
+        String key = name.toLowerCase();
+        if (!stations.containsKey(key))
+            return false;
+
+        settings.update(guildId, current -> current.withStation(key.equals(defaultName) ? null : key));
+        return true;
+    }
+}
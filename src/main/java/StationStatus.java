@@ -0,0 +1,82 @@
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of one Icecast server's status-json.xsl, with every mount indexed by its exact mount point.
+ */
+final class StationStatus {
+
+    /**
+     * Value used for any text field the server did not report.
+     */
+    static final String UNKNOWN = "Unknown";
+
+    /**
+     * Status of a single mount (source) on the server.
+     */
+    static final class Mount {
+        private final String mountPoint;
+        private final String name;
+        private final String artist;
+        private final String title;
+        private final String currentlyPlaying;
+        private final int listeners;
+        private final int bitrate;
+
+        /**
+         * @param mountPoint Mount point without the leading '/', e.g. "stream".
+         * @param name Station name (server_name).
+         * @param artist Current song's artist.
+         * @param title Current song's title.
+         * @param currentlyPlaying Current song's full info (yp_currently_playing).
+         * @param listeners Current listener count, or -1 if unknown.
+         * @param bitrate Bitrate in kbps, or -1 if unknown.
+         */
+        Mount(String mountPoint, String name, String artist, String title, String currentlyPlaying,
+              int listeners, int bitrate) {
+            this.mountPoint = mountPoint;
+            this.name = name;
+            this.artist = artist;
+            this.title = title;
+            this.currentlyPlaying = currentlyPlaying;
+            this.listeners = listeners;
+            this.bitrate = bitrate;
+        }
+
+        String getMountPoint() {return mountPoint;}
+
+        String getName() {return name;}
+
+        String getArtist() {return artist;}
+
+        String getTitle() {return title;}
+
+        String getCurrentlyPlaying() {return currentlyPlaying;}
+
+        int getListeners() {return listeners;}
+
+        int getBitrate() {return bitrate;}
+    }
+
+    private final Map<String, Mount> mounts;
+
+    /**
+     * @param mounts Mounts of the server keyed by mount point. Copied, so later changes to the map are not seen.
+     */
+    StationStatus(Map<String, Mount> mounts) {
+        this.mounts = Collections.unmodifiableMap(new HashMap<>(mounts));
+    }
+
+    /**
+     * @param mountPoint Mount point without the leading '/'.
+     * @return The mount's status, or null if the server does not have that mount.
+     */
+    Mount getMount(String mountPoint) {return mounts.get(mountPoint);}
+
+    /**
+     * @return Every mount on the server.
+     */
+    Collection<Mount> getMounts() {return mounts.values();}
+}
@@ -0,0 +1,129 @@
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Process-wide cache of values keyed by a status URL.<br>
+ * A value younger than the TTL is returned as is. A value older than the TTL but still inside the stale window is
+ * returned right away while a single background refresh is started. Anything older (or missing) is loaded in the
+ * caller's thread, and concurrent callers for the same key wait on the same in-flight load.
+ *
+ * @param <T> Type of the cached value.
+ */
+class StatusCache<T> {
+
+    /**
+     * Shared daemon pool used for stale-while-revalidate refreshes.
+     */
+    private static final ExecutorService REFRESHER = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "eRadio-status-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * A cached value and the time it was loaded.
+     */
+    private static final class Entry<T> {
+        final T value;
+        final long loadedAt;
+
+        Entry(T value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final Map<String, Entry<T>> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<T>> inFlight = new ConcurrentHashMap<>();
+    private final Function<String, T> loader;
+    private final long ttlMillis;
+    private final long staleMillis;
+
+    /**
+     * @param loader Loads the value for a key. May throw an unchecked exception if loading fails.
+     * @param ttlMillis How long a value is served without refreshing.
+     * @param staleMillis How long after the TTL a value is still served while it is refreshed in the background.
+     */
+    StatusCache(Function<String, T> loader, long ttlMillis, long staleMillis) {
+        this.loader = loader;
+        this.ttlMillis = ttlMillis;
+        this.staleMillis = staleMillis;
+    }
+
+    /**
+     * Gets the value for key, loading or refreshing it as needed.
+     *
+     * @param key Status URL to get the value of.
+     * @return The cached or freshly loaded value.
+     * @throws RuntimeException If the value had to be loaded and loading failed.
+     */
+    T get(String key) {
+        Entry<T> entry = entries.get(key);
+        long age = entry != null ? System.currentTimeMillis() - entry.loadedAt : Long.MAX_VALUE;
+
+        if (age <= ttlMillis)
+            return entry.value;
+
+        if (age <= ttlMillis + staleMillis) {
+            load(key, true);
+            return entry.value;
+        }
+
+        try {
+            return load(key, false).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Drops the cached value for key so the next {@link #get(String)} loads it again.
+     *
+     * @param key Status URL to invalidate.
+     */
+    void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Starts a load for key unless one is already running, and returns the shared future.
+     *
+     * @param key Status URL to load.
+     * @param async Whether to load on {@link #REFRESHER} instead of the calling thread.
+     * @return Future that completes with the loaded value.
+     */
+    private CompletableFuture<T> load(String key, boolean async) {
+        CompletableFuture<T> created = new CompletableFuture<>();
+        CompletableFuture<T> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null)
+            return existing;
+
+        Runnable task = () -> {
+            try {
+                T value = loader.apply(key);
+                entries.put(key, new Entry<>(value, System.currentTimeMillis()));
+                created.complete(value);
+            } catch (Throwable t) {
+                created.completeExceptionally(t);
+            } finally {
+                inFlight.remove(key, created);
+            }
+        };
+
+        if (async)
+            REFRESHER.execute(task);
+        else
+            task.run();
+
+        return created;
+    }
+}
@@ -1,14 +1,108 @@
+import com.sedmelluq.discord.lavaplayer.player.AudioLoadResultHandler;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
 import com.sedmelluq.discord.lavaplayer.player.event.AudioEventAdapter;
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackEndReason;
 
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 /**
- * This class schedules tracks for the audio player. It contains the queue of tracks.
+ * This class schedules tracks for the audio player. It contains the queue of tracks, and can rotate through a list of
+ * stations in programming blocks.<br>
+ * When a live stream drops or gets stuck, it is reconnected with exponential backoff and jitter. The first attempt
+ * starts a clone of the last good track (a warm standby that needs no loading) right away.
  */
 class TrackScheduler extends AudioEventAdapter {
+
+    /**
+     * First reconnect delay (in milliseconds), doubled for every failed attempt. Set with -DeRadio.reconnectBase.
+     */
+    private static final long RECONNECT_BASE = Long.getLong("eRadio.reconnectBase", 1000);
+
+    /**
+     * Longest reconnect delay (in milliseconds). Set with -DeRadio.reconnectMax.
+     */
+    private static final long RECONNECT_MAX = Long.getLong("eRadio.reconnectMax", 60000);
+
+    /**
+     * Whether the first reconnect restarts a clone of the last good track instead of loading the station again. Set
+     * with -DeRadio.warmStandby=false to always load.
+     */
+    private static final boolean WARM_STANDBY = !"false".equalsIgnoreCase(System.getProperty("eRadio.warmStandby"));
+
+    /**
+     * How long (in milliseconds) a stream has to play before its failed reconnect attempts are forgotten.
+     */
+    private static final long STABLE_MILLIS = 30000;
+
+    /**
+     * Number of stream reconnects across all players.
+     */
+    static final LongAdder RECONNECTS = Metrics.counter("eradio_stream_reconnects_total");
+
+    /**
+     * How long (in nanoseconds) each stream was silent between dropping and playing again.
+     */
+    static final Histogram SILENCE_GAPS = Metrics.histogram("eradio_silence_gap_nanoseconds");
+
+    /**
+     * How long (in milliseconds) before a block ends the next block's station is loaded. Set with
+     * -DeRadio.rotationPreload.
+     */
+    private static final long PRELOAD_MILLIS = Long.getLong("eRadio.rotationPreload", 10000);
+
+    private static final ScheduledExecutorService ROTATOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "eRadio-rotation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Loads a station URL into a track.
+     */
+    interface TrackLoader {
+        /**
+         * @param url Station URL to load.
+         * @param onLoaded Called with the track once it has loaded.
+         * @param onFailed Called instead if loading fails.
+         */
+        void load(String url, Consumer<AudioTrack> onLoaded, Runnable onFailed);
+    }
+
     private final AudioPlayer player;
+    /**
+     * Loads stations when a stream has to be reconnected. Reconnecting is off until one is set.
+     */
+    private volatile TrackLoader loader;
+    /**
+     * Last stream that started playing, cloned for the first reconnect attempt.
+     */
+    private volatile AudioTrack standby;
+    private int failedAttempts;
+    private long droppedAt = -1;
+    /**
+     * Bumped by {@link #clear()} so reconnects that were already on their way are dropped.
+     */
+    private int generation;
+    private ScheduledFuture<?> pendingReconnect;
+    /**
+     * Tracks waiting to be played. Loader callbacks add to it and the player's event thread takes from it.
+     */
+    private final Queue<AudioTrack> queue = new ConcurrentLinkedQueue<>();
+    private volatile Rotation rotation;
 
     /**
      * @param player The audio player this scheduler uses
@@ -17,6 +111,43 @@ class TrackScheduler extends AudioEventAdapter {
         this.player = player;
     }
 
+    /**
+     * Creates a {@link TrackLoader} that loads through manager.
+     *
+     * @param manager Manager to load stations with.
+     * @param orderingKey Loads with the same key are handled in order.
+     * @return The loader.
+     */
+    static TrackLoader loaderFor(AudioPlayerManager manager, Object orderingKey) {
+        return (url, onLoaded, onFailed) -> manager.loadItemOrdered(orderingKey, url, new AudioLoadResultHandler() {
+            @Override
+            public void trackLoaded(AudioTrack track) {
+                onLoaded.accept(track);
+            }
+
+            @Override
+            public void playlistLoaded(AudioPlaylist playlist) {
+                // Stations are single tracks; treat a playlist as its first track.
+                if (!playlist.getTracks().isEmpty())
+                    onLoaded.accept(playlist.getTracks().get(0));
+                else
+                    onFailed.run();
+            }
+
+            @Override
+            public void noMatches() {
+                System.out.println(url + " could not be found!");
+                onFailed.run();
+            }
+
+            @Override
+            public void loadFailed(FriendlyException exception) {
+                System.out.println("Could not load " + url + ": " + exception.getMessage());
+                onFailed.run();
+            }
+        });
+    }
+
     /**
      * Add the next track to queue or play right away if nothing is in the queue.
      *
@@ -27,7 +158,231 @@ class TrackScheduler extends AudioEventAdapter {
         // something is playing, it returns false and does nothing. In that case the player was already playing so this
         // track goes to the queue instead.
         if (!player.startTrack(track, true)) {
-            new LinkedBlockingQueue<>().offer(track);
+            queue.offer(track);
+        }
+    }
+
+    /**
+     * Starts the next track in the queue, or stops the player if the queue is empty.
+     */
+    void nextTrack() {
+        player.startTrack(queue.poll(), false);
+    }
+
+    /**
+     * @param loader Loads stations when a stream has to be reconnected.
+     */
+    void setLoader(TrackLoader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Empties the queue and stops any rotation. Does not stop the current track.
+     */
+    void clear() {
+        queue.clear();
+        stopRotation();
+        synchronized (this) {
+            generation++;
+            standby = null;
+            droppedAt = -1;
+            failedAttempts = 0;
+            if (pendingReconnect != null)
+                pendingReconnect.cancel(false);
+            pendingReconnect = null;
+        }
+    }
+
+    @Override
+    public synchronized void onTrackStart(AudioPlayer player, AudioTrack track) {
+        if (droppedAt >= 0) {
+            SILENCE_GAPS.record(System.nanoTime() - droppedAt);
+            droppedAt = -1;
+        }
+        if (WARM_STANDBY && track.getInfo().isStream)
+            standby = track;
+    }
+
+    @Override
+    public void onTrackEnd(AudioPlayer player, AudioTrack track, AudioTrackEndReason endReason) {
+        // Only start the next track if the end reason is suitable for it (FINISHED or LOAD_FAILED)
+        if (endReason.mayStartNext && !queue.isEmpty()) {
+            nextTrack();
+        }
+        // A live stream never finishes on its own, so it dropped.
+        else if (endReason.mayStartNext && track.getInfo().isStream) {
+            reconnect(track);
+        }
+    }
+
+    @Override
+    public void onTrackStuck(AudioPlayer player, AudioTrack track, long thresholdMs) {
+        if (track.getInfo().isStream)
+            reconnect(track);
+    }
+
+    /**
+     * Restarts a stream that dropped: right away from the warm standby on the first attempt, otherwise by loading the
+     * station again after an exponential backoff with jitter.
+     *
+     * @param track The stream that dropped.
+     */
+    private void reconnect(AudioTrack track) {
+        TrackLoader current = loader;
+        if (current == null)
+            return;
+
+        AudioTrack warm;
+        int reconnectGeneration;
+        synchronized (this) {
+            if (droppedAt < 0)
+                droppedAt = System.nanoTime();
+            if (track.getPosition() > STABLE_MILLIS)
+                failedAttempts = 0;
+            RECONNECTS.increment();
+
+            warm = failedAttempts++ == 0 ? standby : null;
+            reconnectGeneration = generation;
+
+            if (warm == null) {
+                long delay = Math.min(RECONNECT_MAX, RECONNECT_BASE << Math.min(failedAttempts - 1, 20));
+                delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+                String url = track.getIdentifier();
+                pendingReconnect = ROTATOR.schedule(() -> current.load(url,
+                        loaded -> startIfCurrent(loaded, reconnectGeneration),
+                        () -> {
+                            if (isCurrent(reconnectGeneration))
+                                reconnect(track);
+                        }), delay, TimeUnit.MILLISECONDS);
+                return;
+            }
+        }
+
+        // Started outside the lock, since the player fires onTrackStart/onTrackEnd while holding its own locks.
+        startIfCurrent(warm.makeClone(), reconnectGeneration);
+    }
+
+    /**
+     * @param reconnectGeneration {@link #generation} when the reconnect was started.
+     * @return True if the scheduler has not been cleared since.
+     */
+    private synchronized boolean isCurrent(int reconnectGeneration) {
+        return generation == reconnectGeneration;
+    }
+
+    /**
+     * Starts track unless the scheduler has been cleared since the reconnect began.
+     *
+     * @param track Reconnected stream.
+     * @param reconnectGeneration {@link #generation} when the reconnect was started.
+     */
+    private void startIfCurrent(AudioTrack track, int reconnectGeneration) {
+        if (isCurrent(reconnectGeneration))
+            player.startTrack(track, false);
+    }
+
+    /**
+     * Rotates through stations in fixed-length blocks aligned to the clock, so every guild with the same rotation plays
+     * the same station at the same time. Replaces the current track and any earlier rotation.
+     *
+     * @param stationURLs Stations to rotate through, in order.
+     * @param blockMillis How long each station plays.
+     * @param loader Loads a station URL into a track.
+     */
+    void rotate(List<String> stationURLs, long blockMillis, TrackLoader loader) {
+        stopRotation();
+        Rotation next = new Rotation(new ArrayList<>(stationURLs), blockMillis, loader);
+        rotation = next;
+        next.start();
+    }
+
+    /**
+     * Stops rotating. The current station keeps playing.
+     */
+    void stopRotation() {
+        Rotation current = rotation;
+        rotation = null;
+        if (current != null)
+            current.cancel();
+    }
+
+    /**
+     * @return True if the scheduler is rotating through stations.
+     */
+    boolean isRotating() {
+        return rotation != null;
+    }
+
+    /**
+     * A running station rotation. Each block's station is loaded {@link #PRELOAD_MILLIS} ahead of time, so switching
+     * only has to start the already loaded track.
+     */
+    private class Rotation {
+        private final List<String> stationURLs;
+        private final long blockMillis;
+        private final TrackLoader loader;
+        private volatile AudioTrack preloaded;
+        private volatile long preloadedBlock = -1;
+        private ScheduledFuture<?> preload;
+        private ScheduledFuture<?> change;
+
+        Rotation(List<String> stationURLs, long blockMillis, TrackLoader loader) {
+            this.stationURLs = stationURLs;
+            this.blockMillis = blockMillis;
+            this.loader = loader;
+        }
+
+        private String stationOf(long block) {
+            return stationURLs.get((int) (block % stationURLs.size()));
+        }
+
+        void start() {
+            long block = System.currentTimeMillis() / blockMillis;
+            loader.load(stationOf(block), track -> {
+                if (rotation == this)
+                    player.startTrack(track, false);
+            }, () -> {});
+            scheduleBlock(block + 1);
+        }
+
+        /**
+         * Schedules the preload and the change to block.
+         *
+         * @param block Index of the next block since the epoch.
+         */
+        private synchronized void scheduleBlock(long block) {
+            if (rotation != this)
+                return;
+
+            long startsIn = block * blockMillis - System.currentTimeMillis();
+            preload = ROTATOR.schedule(() -> loader.load(stationOf(block), track -> {
+                preloaded = track;
+                preloadedBlock = block;
+            }, () -> {}), Math.max(0, startsIn - PRELOAD_MILLIS), TimeUnit.MILLISECONDS);
+            change = ROTATOR.schedule(() -> changeTo(block), Math.max(0, startsIn), TimeUnit.MILLISECONDS);
+        }
+
+        private void changeTo(long block) {
+            if (rotation != this)
+                return;
+
+            AudioTrack track = preloadedBlock == block ? preloaded : null;
+            preloaded = null;
+            if (track != null)
+                player.startTrack(track, false);
+            else
+                loader.load(stationOf(block), loaded -> {
+                    if (rotation == this)
+                        player.startTrack(loaded, false);
+                }, () -> {});
+            scheduleBlock(block + 1);
+        }
+
+        synchronized void cancel() {
+            if (preload != null)
+                preload.cancel(false);
+            if (change != null)
+                change.cancel(false);
         }
     }
-}
\ No newline at end of file
+}
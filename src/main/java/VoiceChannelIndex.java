@@ -0,0 +1,73 @@
+import net.dv8tion.jda.core.entities.Guild;
+import net.dv8tion.jda.core.entities.VoiceChannel;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Voice channel IDs keyed by guild and lower case name, so a channel is found by name without scanning the guild's
+ * channels.<br>
+ * A guild is indexed the first time it is looked up, and kept current from channel create, rename and delete events.
+ * If several channels share a name, the first one indexed is used.
+ */
+class VoiceChannelIndex {
+
+    /**
+     * Channel IDs keyed by lower case name, keyed by guild ID.
+     */
+    private final Map<String, Map<String, String>> guilds = new ConcurrentHashMap<>();
+
+    /**
+     * @param guild The guild to look in.
+     * @param name Name of the channel, in any case.
+     * @return The channel, or null if the guild has none by that name.
+     */
+    VoiceChannel find(Guild guild, String name) {
+        String id = channels(guild).get(name.toLowerCase());
+        return id != null ? guild.getVoiceChannelById(id) : null;
+    }
+
+    /**
+     * @param channel A channel that was created.
+     */
+    void added(VoiceChannel channel) {
+        Map<String, String> channels = guilds.get(channel.getGuild().getId());
+        if (channels != null)
+            channels.putIfAbsent(channel.getName().toLowerCase(), channel.getId());
+    }
+
+    /**
+     * @param channel A channel that was renamed.
+     * @param oldName The channel's name before.
+     */
+    void renamed(VoiceChannel channel, String oldName) {
+        unindex(channel, oldName);
+        added(channel);
+    }
+
+    /**
+     * @param channel A channel that was deleted.
+     */
+    void removed(VoiceChannel channel) {
+        unindex(channel, channel.getName());
+    }
+
+    /**
+     * Removes channel from its guild's index. Another channel may share the name, so if channel was the one indexed
+     * the guild is indexed again on its next lookup.
+     */
+    private void unindex(VoiceChannel channel, String name) {
+        Map<String, String> channels = guilds.get(channel.getGuild().getId());
+        if (channels != null && channels.remove(name.toLowerCase(), channel.getId()))
+            guilds.remove(channel.getGuild().getId(), channels);
+    }
+
+    private Map<String, String> channels(Guild guild) {
+        return guilds.computeIfAbsent(guild.getId(), id -> {
+            Map<String, String> channels = new ConcurrentHashMap<>();
+            for (VoiceChannel channel : guild.getVoiceChannels())
+                channels.putIfAbsent(channel.getName().toLowerCase(), channel.getId());
+            return channels;
+        });
+    }
+}
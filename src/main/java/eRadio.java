@@ -1,13 +1,20 @@
-import com.sedmelluq.discord.lavaplayer.player.AudioLoadResultHandler;
+import com.sedmelluq.discord.lavaplayer.format.StandardAudioDataFormats;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
 import com.sedmelluq.discord.lavaplayer.player.DefaultAudioPlayerManager;
 import com.sedmelluq.discord.lavaplayer.source.AudioSourceManagers;
-import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
-import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
 import net.dv8tion.jda.core.AccountType;
+import net.dv8tion.jda.core.JDA;
 import net.dv8tion.jda.core.JDABuilder;
 import net.dv8tion.jda.core.entities.*;
+import net.dv8tion.jda.core.events.ReadyEvent;
+import net.dv8tion.jda.core.events.ReconnectedEvent;
+import net.dv8tion.jda.core.events.channel.voice.VoiceChannelCreateEvent;
+import net.dv8tion.jda.core.events.channel.voice.VoiceChannelDeleteEvent;
+import net.dv8tion.jda.core.events.channel.voice.update.VoiceChannelUpdateNameEvent;
+import net.dv8tion.jda.core.events.guild.voice.GuildVoiceJoinEvent;
+import net.dv8tion.jda.core.events.guild.voice.GuildVoiceLeaveEvent;
+import net.dv8tion.jda.core.events.guild.voice.GuildVoiceMoveEvent;
 import net.dv8tion.jda.core.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.core.exceptions.RateLimitedException;
 import net.dv8tion.jda.core.hooks.ListenerAdapter;
@@ -19,8 +26,27 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * <a href="http://ethereal.network/" target="_blank">Ethereal Network</a>'s Radio Bot<br>
@@ -33,6 +59,14 @@ import java.util.Map;
  * - Bot Token<br>
  * - Radio Station URL<br>
  * - VoiceChannel<br>
+ * - Any number of other stations, each "name=url"<br>
+ * The first station can also be given as "name=url". Guilds play it until they pick another with -station.<br>
+ * Each guild's station, voice channel (set with -voice) and volume are kept in -DeRadio.settingsDir
+ * (./guilds by default; see {@link GuildSettingsStore}). Guilds that were playing are resumed when a shard is ready
+ * or reconnects. A guild with nobody listening is suspended after -DeRadio.idleGrace and woken when someone joins.<br>
+ * <br>
+ * Large bots can be sharded with -DeRadio.shards, and split across processes by shard range (see {@link ShardRange}).
+ * Each shard gets its own listener and guild managers.<br>
  * <br>
  * Created by <a href="https://github.com/Grasinga" target="_blank">Grasinga</a> using
  * <a href="https://github.com/DV8FromTheWorld/JDA" target="_blank">JDA</a> and
@@ -49,12 +83,14 @@ public class eRadio extends  ListenerAdapter{
         String token = "";
         String station = "";
         String voiceChannel = "General";
+        List<String> stations = new ArrayList<>();
 
         // Initialize bot via the command line.
         if(args.length >= 3) {
             token = args[0];
             station = args[1];
             voiceChannel = args[2];
+            stations.addAll(Arrays.asList(args).subList(3, args.length));
         }
         try {
             if(token.equals("") && station.equals("")) {
@@ -72,17 +108,62 @@ public class eRadio extends  ListenerAdapter{
                 if (properties != null)
                     voiceChannel = properties;
 
+                while ((properties = br.readLine()) != null)
+                    stations.add(properties);
+
                 br.close();
             }
+            stations.add(0, station);
+
+            ShardRange shards = ShardRange.fromSystemProperties();
+
+            String settingsDir = System.getProperty("eRadio.settingsDir", "./guilds");
+            GuildSettingsStore settings;
+            try {
+                settings = new GuildSettingsStore(settingsDir.isEmpty() ? null : Paths.get(settingsDir));
+            } catch (IOException e) {
+                System.out.println("Could not load the guild settings in " + settingsDir + ": " + e.getMessage());
+                return;
+            }
+            StationRegistry registry = new StationRegistry(stations, settings);
+
+            // Every shard shares one player manager and station cache; each has its own listener and guild managers.
+            AudioPlayerManager playerManager = new DefaultAudioPlayerManager();
+            // Opus stations are only passed through if their packets match this format exactly (see StationFormat).
+            playerManager.getConfiguration().setOutputFormat(StandardAudioDataFormats.DISCORD_OPUS);
+            AudioSourceManagers.registerRemoteSources(playerManager);
+            AudioSourceManagers.registerLocalSource(playerManager);
+
+            StationCache stationCache = new StationCache(playerManager);
+            List<String> stationURLs = new ArrayList<>();
+            for (String name : registry.getNames())
+                stationURLs.add(registry.getURL(name));
+            stationCache.prewarm(stationURLs);
+            stationURLs.forEach(StationFormat::detect);
+
+            Metrics.start();
+            if (STATS_INTERVAL > 0)
+                TIMER.scheduleAtFixedRate(eRadio::printStats, STATS_INTERVAL, STATS_INTERVAL, TimeUnit.MILLISECONDS);
+
+            for (int shard = shards.getFirst(); shard <= shards.getLast(); shard++) {
+                if (shard > shards.getFirst())
+                    Thread.sleep(SHARD_LOGIN_DELAY);
+
+                JDABuilder builder = new JDABuilder(AccountType.BOT)
+                        .setBulkDeleteSplittingEnabled(false)
+                        .setToken(token)
+                        .addListener(new eRadio(registry, settings, voiceChannel, playerManager, stationCache));
+                if (shards.isSharded())
+                    builder.useSharding(shard, shards.getTotal());
+                builder.buildBlocking();
 
-            new JDABuilder(AccountType.BOT)
-                    .setBulkDeleteSplittingEnabled(false)
-                    .setToken(token)
-                    .addListener(new eRadio(station, voiceChannel))
-                    .buildBlocking();
+                if (shards.isSharded())
+                    System.out.println("Shard " + shard + " of " + shards.getTotal() + " is ready.");
+            }
         }
         catch (IllegalArgumentException e) {
-            System.out.println("The config was not populated. Please make sure all arguments were given.");
+            System.out.println("The config was not populated. Please make sure all arguments were given. " +
+                    (e.getMessage() != null ? e.getMessage() : ""));
         }
         catch (LoginException e) {
             System.out.println("The provided bot token was incorrect. Please provide a valid token.");
@@ -103,51 +184,276 @@ public class eRadio extends  ListenerAdapter{
     }
 
     /**
-     * Radio station's URL.
+     * How long (in milliseconds) a command may run in the background before it is cancelled. Set with
+     * -DeRadio.commandTimeout.
+     */
+    private static final long COMMAND_TIMEOUT = Long.getLong("eRadio.commandTimeout", 10000);
+
+    /**
+     * How long (in milliseconds) to wait between shard logins. Discord allows one login every 5 seconds.
+     */
+    private static final long SHARD_LOGIN_DELAY = 5000;
+
+    /**
+     * Listener of every shard this process runs.
+     */
+    private static final List<eRadio> SHARDS = new CopyOnWriteArrayList<>();
+
+    static {
+        Metrics.gauge("eradio_shards", SHARDS::size);
+        Metrics.gauge("eradio_guild_players", () -> SHARDS.stream().mapToLong(shard -> shard.musicManagers.size()).sum());
+        Metrics.gauge("eradio_guilds_playing", () -> SHARDS.stream()
+                .flatMap(shard -> shard.musicManagers.values().stream())
+                .filter(manager -> manager.getStation() != null)
+                .count());
+        Metrics.gauge("eradio_shared_stations", StationBroadcaster::count);
+        Metrics.gauge("eradio_passthrough_stations", StationFormat::countPassthrough);
+        Metrics.gauge("eradio_guilds_suspended", () -> SHARDS.stream().mapToLong(shard -> shard.suspended.size()).sum());
+    }
+
+    /**
+     * How often (in milliseconds) the {@link Metrics} are printed. Set with -DeRadio.statsInterval; 0 disables it.
+     */
+    private static final long STATS_INTERVAL = Long.getLong("eRadio.statsInterval", 300000);
+
+    /**
+     * Number of threads running commands in the background. Set with -DeRadio.commandThreads.
+     */
+    private static final int COMMAND_THREADS = Integer.getInteger("eRadio.commandThreads", 4);
+
+    /**
+     * Bounded pool that runs commands doing blocking work (metadata fetches), so they never hold up the JDA event
+     * thread.
+     */
+    private static final ExecutorService COMMAND_EXECUTOR = new ThreadPoolExecutor(
+            COMMAND_THREADS, COMMAND_THREADS, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(100), r -> {
+                Thread thread = new Thread(r, "eRadio-command");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * Cancels commands that run longer than {@link #COMMAND_TIMEOUT} and prints the {@link Metrics}.
+     */
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "eRadio-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * How long (in nanoseconds) each message event held up the JDA event thread.
+     */
+    static final Histogram EVENT_BLOCKED = Metrics.histogram("eradio_event_blocked_nanoseconds");
+
+    /**
+     * Most commands one channel can run back to back. Set with -DeRadio.channelBurst.
+     */
+    private static final int CHANNEL_BURST = Integer.getInteger("eRadio.channelBurst", 5);
+
+    /**
+     * How long (in milliseconds) a channel waits for each command after its burst is used up. Set with
+     * -DeRadio.channelRefill.
+     */
+    private static final long CHANNEL_REFILL = Long.getLong("eRadio.channelRefill", 1000);
+
+    /**
+     * How long (in milliseconds) after a -nowplaying further ones in the same channel are folded into it. Set with
+     * -DeRadio.nowPlayingWindow.
+     */
+    private static final long NOW_PLAYING_WINDOW = Long.getLong("eRadio.nowPlayingWindow", 3000);
+
+    /**
+     * Commands dropped because their channel ran out of tokens.
+     */
+    private static final LongAdder THROTTLED = Metrics.counter("eradio_commands_throttled_total");
+
+    /**
+     * -nowplaying requests folded into an earlier one.
+     */
+    private static final LongAdder COALESCED = Metrics.counter("eradio_nowplaying_coalesced_total");
+
+    /**
+     * Most guilds resumed at once after a shard is ready or reconnects. Set with -DeRadio.resumeParallelism.
+     */
+    private static final int RESUME_PARALLELISM = Math.max(1, Integer.getInteger("eRadio.resumeParallelism", 16));
+
+    /**
+     * How long (in milliseconds) a resuming guild may take to send audio before the next one is started anyway. Set
+     * with -DeRadio.resumeTimeout.
+     */
+    private static final long RESUME_TIMEOUT = Long.getLong("eRadio.resumeTimeout", 15000);
+
+    /**
+     * How long (in nanoseconds) resumed guilds took to send audio, from the shard being ready or reconnecting.
+     */
+    static final Histogram RESUME_FIRST_AUDIO = Metrics.histogram("eradio_resume_first_audio_nanoseconds");
+
+    /**
+     * Guilds whose station could not be loaded when resuming.
+     */
+    private static final LongAdder RESUME_FAILED = Metrics.counter("eradio_resume_failed_total");
+
+    /**
+     * How long (in milliseconds) a guild's VoiceChannel can have no listeners before its station is suspended. Set
+     * with -DeRadio.idleGrace; 0 never suspends.
+     */
+    private static final long IDLE_GRACE = Long.getLong("eRadio.idleGrace", 120000);
+
+    /**
+     * How long (in nanoseconds) suspended guilds took to send audio again after someone joined.
+     */
+    static final Histogram WAKE_FIRST_AUDIO = Metrics.histogram("eradio_wake_first_audio_nanoseconds");
+
+    /**
+     * Stations suspended because nobody was listening.
+     */
+    private static final LongAdder SUSPENDS = Metrics.counter("eradio_suspends_total");
+
+    /**
+     * Rate limits and coalesces commands per channel, so one busy channel cannot use up the bot's message budget.
+     */
+    private final ChannelLimiter limiter = new ChannelLimiter(CHANNEL_BURST, CHANNEL_REFILL, NOW_PLAYING_WINDOW);
+
+    /**
+     * The bot's commands. Guild messages only.
+     */
+    private final CommandRegistry commands = new CommandRegistry()
+            .register("join", false, (event, arguments) -> joinVoice(event.getGuild(), event.getTextChannel()))
+            .register("leave", false, (event, arguments) -> event.getGuild().getAudioManager().closeAudioConnection())
+            .register("play", false, (event, arguments) -> loadAndPlay(event.getTextChannel()))
+            .register("nowplaying", false, (event, arguments) -> requestNowPlaying(event.getTextChannel()))
+            .register("stop", false, (event, arguments) -> stopPlayer(event.getTextChannel()))
+            .register("volume", true, (event, arguments) -> volume(event.getTextChannel(), arguments))
+            .register("mute", false, (event, arguments) -> mute(event.getTextChannel(), true))
+            .register("unmute", false, (event, arguments) -> mute(event.getTextChannel(), false))
+            .register("voice", true, (event, arguments) -> selectVoice(event.getTextChannel(), arguments))
+            .register("announce", false, (event, arguments) -> toggleAnnouncements(event.getTextChannel()))
+            .register("station", true, (event, arguments) -> {
+                if (arguments.isEmpty())
+                    listStations(event.getTextChannel());
+                else
+                    selectStation(event.getTextChannel(), arguments);
+            })
+            .register("rotate", true, (event, arguments) -> rotate(event.getTextChannel(), arguments))
+            .register("help", false, (event, arguments) -> sendCommands(event.getAuthor()))
+            .admitting(event -> {
+                if (limiter.tryAcquire(event.getTextChannel().getId()))
+                    return true;
+                THROTTLED.increment();
+                return false;
+            });
+
+    /**
+     * Stations the bot can play, and each guild's selection.
+     */
+    private final StationRegistry stations;
+
+    /**
+     * Each guild's station, voice channel and volume.
+     */
+    private final GuildSettingsStore settings;
+
+    /**
+     * Voice channels by name, for guilds that have not picked one with -voice.
+     */
+    private final VoiceChannelIndex voiceChannels = new VoiceChannelIndex();
+
+    /**
+     * How long (in milliseconds) a stopped guild's {@link GuildMusicManager} is kept before it is evicted. Set with
+     * -DeRadio.idleEviction.
+     */
+    private static final long IDLE_EVICTION = Long.getLong("eRadio.idleEviction", 600000);
+
+    /**
+     * Whether guilds playing the same station share one decoded stream through a {@link StationBroadcaster}. Set with
+     * -DeRadio.sharedStreams=false to give every guild its own stream.
+     */
+    private static final boolean SHARED_STREAMS = !"false".equalsIgnoreCase(System.getProperty("eRadio.sharedStreams"));
+
+    /**
+     * Each guild's {@link GuildMusicManager} on this shard, keyed by guild ID.
+     */
+    private final Map<String, GuildMusicManager> musicManagers = new ConcurrentHashMap<>();
+
+    /**
+     * IDs of guilds whose station is suspended until someone joins their VoiceChannel.
      */
-    private String stationURL = "";
+    private final Set<String> suspended = ConcurrentHashMap.newKeySet();
 
     /**
-     * The audio form of the station.
+     * Pending suspensions of guilds whose VoiceChannel emptied, keyed by guild ID.
      */
-    private AudioTrack station = null;
+    private final Map<String, ScheduledFuture<?>> idleTimers = new ConcurrentHashMap<>();
 
     /**
-     * VoiceChannel that the bot will play in. Has a default value of "General" (from main()).
+     * VoiceChannel that the bot will play in unless a guild picks another. Has a default value of "General" (from main()).
      */
     private String voiceChannel = "";
 
     private final AudioPlayerManager playerManager;
 
     /**
-     * Initializes the bot with the station and VoiceChannel.
+     * Resolved stations. Every configured station is loaded at startup, so -play only clones a track.
+     */
+    private final StationCache stationCache;
+
+    /**
+     * Initializes one shard of the bot with the stations and VoiceChannel.
      *
-     * @param stationURL Internet Radio Station URL
+     * @param stations Internet Radio Stations
+     * @param settings Each guild's settings, shared by every shard.
      * @param voiceChannel Discord VoiceChannel the bot will play in.
+     * @param playerManager Audio player manager shared by every shard.
+     * @param stationCache Resolved stations, shared by every shard.
      */
-    private eRadio(String stationURL, String voiceChannel) {
-        this.stationURL = stationURL;
+    private eRadio(StationRegistry stations, GuildSettingsStore settings, String voiceChannel, AudioPlayerManager playerManager, StationCache stationCache) {
+        this.stations = stations;
+        this.settings = settings;
         this.voiceChannel = voiceChannel;
+        this.playerManager = playerManager;
+        this.stationCache = stationCache;
+
+        SHARDS.add(this);
+        TIMER.scheduleAtFixedRate(this::evictIdleManagers, IDLE_EVICTION, IDLE_EVICTION, TimeUnit.MILLISECONDS);
+        TIMER.scheduleAtFixedRate(limiter::evictIdle, 60000, 60000, TimeUnit.MILLISECONDS);
+    }
 
-        this.playerManager = new DefaultAudioPlayerManager();
-        AudioSourceManagers.registerRemoteSources(playerManager);
-        AudioSourceManagers.registerLocalSource(playerManager);
+    /**
+     * Prints the {@link Metrics}.
+     */
+    private static void printStats() {
+        System.out.println("Event thread blocked per message: " + EVENT_BLOCKED.summarizeNanos());
+        System.out.println("Commands: " + Metrics.COMMANDS.summarizeNanos() +
+                ", in the background: " + Metrics.ASYNC_COMMANDS.summarizeNanos() +
+                ", throttled: " + THROTTLED.sum() + ", -nowplaying coalesced: " + COALESCED.sum());
+        System.out.println("Frames sent: " + Metrics.FRAMES_PROVIDED.sum() +
+                ", missed: " + Metrics.FRAMES_MISSED.sum() +
+                ", send loop underruns: " + AudioPlayerSendHandler.UNDERRUNS.sum());
+        System.out.println("Stream reconnects: " + TrackScheduler.RECONNECTS.sum() +
+                ", silence gaps: " + TrackScheduler.SILENCE_GAPS.summarizeNanos());
+        System.out.println("Metadata fetches: " + Metrics.METADATA_FETCH.summarizeNanos() +
+                ", errors: " + Metrics.METADATA_ERRORS.sum());
+        System.out.println("Resumed guilds' first audio: " + RESUME_FIRST_AUDIO.summarizeNanos() +
+                ", failed: " + RESUME_FAILED.sum());
+        System.out.println("Suspended for no listeners: " + SUSPENDS.sum() +
+                ", woken guilds' first audio: " + WAKE_FIRST_AUDIO.summarizeNanos());
     }
 
     /**
-     * Joins the {@link #voiceChannel} specified by the bot.properties file if possible.
+     * Joins the VoiceChannel the guild picked with -voice, or else the {@link #voiceChannel} specified by the
+     * bot.properties file, if possible.
      *
      * @param guild The guild in which the {@link #voiceChannel} resides.
      * @param channel Used to send a message saying the {@link #voiceChannel} was not found if it could not connect.
+     *                Null to not send one.
      */
     private void joinVoice(Guild guild, TextChannel channel) {
-        //Scans through the VoiceChannels in this Guild, looking for one with a case-insensitive matching name.
-        VoiceChannel voice = guild.getVoiceChannels().stream().filter(
-                vChan -> vChan.getName().equalsIgnoreCase(voiceChannel))
-                .findFirst().orElse(null);
+        VoiceChannel voice = findVoice(guild);
         if (voice == null)
         {
-            channel.sendMessage("There isn't a VoiceChannel called: '" + voiceChannel + "'! Please create one to use this bot!");
+            if (channel != null)
+                channel.sendMessage("There isn't a VoiceChannel called: '" + voiceChannel + "'! Please create one to use this bot!").queue();
             return;
         }
         try {
@@ -155,6 +461,216 @@ public class eRadio extends  ListenerAdapter{
         }catch (Exception e){e.printStackTrace();}
     }
 
+    /**
+     * @param guild The guild to look in.
+     * @return The VoiceChannel the guild picked with -voice, or else the {@link #voiceChannel}, or null if neither exists.
+     */
+    private VoiceChannel findVoice(Guild guild) {
+        String voiceId = settings.get(guild.getId()).getVoiceChannelId();
+        VoiceChannel voice = voiceId != null ? guild.getVoiceChannelById(voiceId) : null;
+        return voice != null ? voice : voiceChannels.find(guild, voiceChannel);
+    }
+
+    @Override
+    public void onReady(ReadyEvent event) {
+        resumeAll(event.getJDA());
+    }
+
+    @Override
+    public void onReconnect(ReconnectedEvent event) {
+        resumeAll(event.getJDA());
+    }
+
+    /**
+     * Resumes every guild on the shard that was playing, in the background. Guilds with the most members waiting in
+     * their VoiceChannel go first, then the largest guilds. At most {@link #RESUME_PARALLELISM} guilds are resumed at
+     * once; a guild's slot is freed once it sends audio, fails, or {@link #RESUME_TIMEOUT} passes.
+     *
+     * @param jda The shard that is ready or reconnected.
+     */
+    private void resumeAll(JDA jda) {
+        long start = System.nanoTime();
+        List<Guild> guilds = new ArrayList<>();
+        Map<Guild, Long> priorities = new HashMap<>();
+        for (Guild guild : jda.getGuilds()) {
+            // Suspended guilds wake when someone joins.
+            if (!settings.get(guild.getId()).isPlaying() || suspended.contains(guild.getId()))
+                continue;
+            VoiceChannel voice = findVoice(guild);
+            long waiting = voice != null ? voice.getMembers().size() : 0;
+            guilds.add(guild);
+            priorities.put(guild, waiting << 32 | guild.getMembers().size());
+        }
+        if (guilds.isEmpty())
+            return;
+        guilds.sort((a, b) -> Long.compare(priorities.get(b), priorities.get(a)));
+
+        Thread thread = new Thread(() -> {
+            Semaphore slots = new Semaphore(RESUME_PARALLELISM);
+            for (Guild guild : guilds) {
+                try {
+                    slots.acquire();
+                } catch (InterruptedException e) {return;}
+                resume(guild, start, slots::release);
+            }
+            System.out.println("Resuming " + guilds.size() + " guilds took " + (System.nanoTime() - start) / 1000000 + " ms to start.");
+        }, "eRadio-resume");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Starts the guild's selected station again, or only rejoins its VoiceChannel if it is still playing.
+     *
+     * @param guild The {@link Guild} to resume.
+     * @param start When (from {@link System#nanoTime()}) resuming began, for {@link #RESUME_FIRST_AUDIO}.
+     * @param done Run once the guild sends audio, fails or times out.
+     */
+    private void resume(Guild guild, long start, Runnable done) {
+        AtomicBoolean finished = new AtomicBoolean();
+        Runnable finish = () -> {
+            if (finished.compareAndSet(false, true))
+                done.run();
+        };
+
+        GuildMusicManager musicManager = getGuildAudioPlayer(guild);
+        if (musicManager.getStation() != null) {
+            if (!guild.getAudioManager().isConnected() && !guild.getAudioManager().isAttemptingToConnect())
+                joinVoice(guild, null);
+            finish.run();
+            return;
+        }
+
+        musicManager.getSendHandler().onFirstFrame(() -> {
+            RESUME_FIRST_AUDIO.record(System.nanoTime() - start);
+            finish.run();
+        });
+        startStation(guild, musicManager, null).whenComplete((played, error) -> {
+            if (error != null) {
+                RESUME_FAILED.increment();
+                System.out.println("Could not resume " + guild.getName() + ": " + StationCache.unwrap(error).getMessage());
+                musicManager.getSendHandler().onFirstFrame(null);
+                finish.run();
+            }
+        });
+        TIMER.schedule(finish, RESUME_TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void onGuildVoiceJoin(GuildVoiceJoinEvent event) {
+        checkListeners(event.getGuild());
+    }
+
+    @Override
+    public void onGuildVoiceLeave(GuildVoiceLeaveEvent event) {
+        checkListeners(event.getGuild());
+    }
+
+    @Override
+    public void onGuildVoiceMove(GuildVoiceMoveEvent event) {
+        checkListeners(event.getGuild());
+    }
+
+    /**
+     * @param guild The {@link Guild} to check.
+     * @return The VoiceChannel the bot is in, or null. Read from the bot's voice state, which is current as soon as
+     * its own join event arrives, unlike the audio connection.
+     */
+    private static VoiceChannel getBotChannel(Guild guild) {
+        GuildVoiceState state = guild.getSelfMember().getVoiceState();
+        return state != null ? state.getChannel() : null;
+    }
+
+    /**
+     * @param guild The {@link Guild} to check.
+     * @return True if a user other than a bot is in the VoiceChannel the bot is in.
+     */
+    private static boolean hasListeners(Guild guild) {
+        VoiceChannel connected = getBotChannel(guild);
+        if (connected == null)
+            return false;
+        for (Member member : connected.getMembers())
+            if (!member.getUser().isBot())
+                return true;
+        return false;
+    }
+
+    /**
+     * Wakes the guild if it is suspended and someone is listening, or schedules suspending it if it is playing to an
+     * empty VoiceChannel. Called whenever someone joins, leaves or moves between the guild's VoiceChannels.
+     *
+     * @param guild The {@link Guild} whose VoiceChannels changed.
+     */
+    private void checkListeners(Guild guild) {
+        if (IDLE_GRACE <= 0 || getBotChannel(guild) == null)
+            return;
+
+        if (hasListeners(guild)) {
+            ScheduledFuture<?> timer = idleTimers.remove(guild.getId());
+            if (timer != null)
+                timer.cancel(false);
+            if (suspended.remove(guild.getId()))
+                wake(guild);
+        }
+        else if (getPlayingManager(guild) != null) {
+            idleTimers.computeIfAbsent(guild.getId(), id -> TIMER.schedule(() -> {
+                idleTimers.remove(id);
+                GuildMusicManager musicManager = getPlayingManager(guild);
+                if (musicManager != null && getBotChannel(guild) != null && !hasListeners(guild))
+                    suspend(guild, musicManager);
+            }, IDLE_GRACE, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    /**
+     * Stops decoding the guild's station and lets go of its stream, staying in the VoiceChannel. The guild is still
+     * resumed after a restart.
+     *
+     * @param guild The {@link Guild} nobody is listening in.
+     * @param musicManager The guild's {@link GuildMusicManager}.
+     */
+    private void suspend(Guild guild, GuildMusicManager musicManager) {
+        suspended.add(guild.getId());
+        releaseStation(guild, musicManager);
+        SUSPENDS.increment();
+    }
+
+    /**
+     * Plays the suspended guild's station again. Its track comes from the {@link #stationCache} (or a shared station
+     * that is already playing), so only the stream has to be opened again.
+     *
+     * @param guild The {@link Guild} someone joined.
+     */
+    private void wake(Guild guild) {
+        long start = System.nanoTime();
+        GuildMusicManager musicManager = getGuildAudioPlayer(guild);
+        if (musicManager.getStation() != null)
+            return;
+
+        musicManager.getSendHandler().onFirstFrame(() -> WAKE_FIRST_AUDIO.record(System.nanoTime() - start));
+        startStation(guild, musicManager, null).whenComplete((played, error) -> {
+            if (error != null) {
+                musicManager.getSendHandler().onFirstFrame(null);
+                System.out.println("Could not wake " + guild.getName() + ": " + StationCache.unwrap(error).getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void onVoiceChannelCreate(VoiceChannelCreateEvent event) {
+        voiceChannels.added(event.getChannel());
+    }
+
+    @Override
+    public void onVoiceChannelUpdateName(VoiceChannelUpdateNameEvent event) {
+        voiceChannels.renamed(event.getChannel(), event.getOldName());
+    }
+
+    @Override
+    public void onVoiceChannelDelete(VoiceChannelDeleteEvent event) {
+        voiceChannels.removed(event.getChannel());
+    }
+
     /**
      * Handles getting and executing commands.
      *
@@ -162,101 +678,186 @@ public class eRadio extends  ListenerAdapter{
      */
     @Override
     public void onMessageReceived(MessageReceivedEvent event) {
-        Guild guild = event.getGuild();
-
-        if(guild != null) {
-            String command = event.getMessage().getContent();
-            switch (command.toLowerCase()) {
-                case "-join":
-                    joinVoice(event.getGuild(), event.getTextChannel());
-                    break;
-                case "-leave":
-                    event.getGuild().getAudioManager().closeAudioConnection();
-                    break;
-                case "-play":
-                    loadAndPlay(event.getTextChannel());
-                    break;
-                case "-nowplaying":
-                    nowPlaying(event.getTextChannel());
-                    break;
-                case "-stop":
-                    stopPlayer(event.getTextChannel());
-                    break;
-                case "-help":
-                    sendCommands(event.getAuthor());
-                    break;
-            }
-        }
+        long start = System.nanoTime();
+
+        // The raw content needs no mention resolving, and the registry rejects chat by its first character.
+        String content = event.getMessage().getRawContent();
+        if (content.length() > 1 && content.charAt(0) == CommandRegistry.PREFIX && event.getGuild() != null &&
+                commands.dispatch(event, content))
+            Metrics.COMMANDS.record(System.nanoTime() - start);
 
         super.onMessageReceived(event);
+        EVENT_BLOCKED.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Runs task on {@link #COMMAND_EXECUTOR} and cancels it if it takes longer than {@link #COMMAND_TIMEOUT}. The time
+     * from submitting the task to it finishing is recorded in {@link Metrics#ASYNC_COMMANDS}.
+     *
+     * @param channel {@link TextChannel} to send a message to if the task is rejected or times out.
+     * @param task The command's work. Should check for interruption before replying.
+     */
+    private void runAsync(TextChannel channel, Runnable task) {
+        Future<?> future;
+        try {
+            long submitted = System.nanoTime();
+            future = COMMAND_EXECUTOR.submit(() -> {
+                try {
+                    task.run();
+                } finally {
+                    Metrics.ASYNC_COMMANDS.record(System.nanoTime() - submitted);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            channel.sendMessage("eRadio is busy right now! Please try again in a moment.").queue();
+            return;
+        }
+
+        TIMER.schedule(() -> {
+            if (future.cancel(true))
+                channel.sendMessage("The radio station took too long to respond!").queue();
+        }, COMMAND_TIMEOUT, TimeUnit.MILLISECONDS);
     }
 
     /**
-     * Loads the station and then calls {@link #play(Guild, TextChannel, GuildMusicManager, AudioTrack)}.
+     * Starts the guild's selected station unless it is already playing.
      *
      * @param channel {@link TextChannel} to send messages to.
      */
     private void loadAndPlay(final TextChannel channel) {
+        GuildMusicManager musicManager = getGuildAudioPlayer(channel.getGuild());
 
-        if (station == null) {
-            GuildMusicManager musicManager = getGuildAudioPlayer(channel.getGuild());
-            playerManager.loadItemOrdered(musicManager, stationURL, new AudioLoadResultHandler() {
-                @Override
-                public void trackLoaded(AudioTrack track) {
-                    play(channel.getGuild(), channel, musicManager, track);
-                }
-
-                @Override
-                public void playlistLoaded(AudioPlaylist playlist) {
-                    // Not needed.
-                }
+        if (musicManager.getStation() != null)
+            channel.sendMessage("eRadio is already playing!").queue();
+        else {
+            startStation(channel.getGuild(), musicManager, channel).whenComplete((played, error) -> {
+                if (error != null)
+                    channel.sendMessage("Could not play: " + StationCache.unwrap(error).getMessage()).queue();
+            });
+        }
+    }
 
-                @Override
-                public void noMatches() {
-                    channel.sendMessage(stationURL + " could not be found!").queue();
-                }
+    /**
+     * Loads the guild's selected station and then calls
+     * {@link #play(Guild, TextChannel, GuildMusicManager, AudioTrack, String)}.
+     *
+     * @param guild The {@link Guild} to play in.
+     * @param musicManager The guild's {@link GuildMusicManager}.
+     * @param channel {@link TextChannel} to send messages to, or null to not send any.
+     * @return Future that completes once the station is playing, or fails if it could not be loaded.
+     */
+    private CompletableFuture<Void> startStation(Guild guild, GuildMusicManager musicManager, TextChannel channel) {
+        String stationURL = stations.getSelectedURL(guild.getId());
 
-                @Override
-                public void loadFailed(FriendlyException exception) {
-                    channel.sendMessage("Could not play: " + exception.getMessage()).queue();
-                    exception.printStackTrace();
-                }
+        CompletableFuture<AudioTrack> station;
+        // A shared station is sent as is, so only guilds at 100% volume can share one.
+        if (SHARED_STREAMS && musicManager.getVolume() == 100) {
+            StationBroadcaster broadcaster = StationBroadcaster.acquire(playerManager, stationCache, stationURL, guild.getId());
+            station = broadcaster.getTrack().thenApply(track -> {
+                musicManager.attach(broadcaster);
+                return track;
             });
         }
         else
-            channel.sendMessage("eRadio is already playing!").queue();
+            station = stationCache.load(stationURL);
+
+        return station.thenAccept(track -> play(guild, channel, musicManager, track, stationURL));
     }
 
     /**
-     * Creates the {@link GuildMusicManager} to handle the music being played.
+     * Gets the guild's {@link GuildMusicManager} to handle the music being played, creating it the first time.
      *
      * @param guild The {@link Guild} the manager pertains to.
      * @return The {@link GuildMusicManager}
      */
-    private synchronized GuildMusicManager getGuildAudioPlayer(Guild guild) {
-        GuildMusicManager musicManager = new GuildMusicManager(playerManager);
-
+    private GuildMusicManager getGuildAudioPlayer(Guild guild) {
+        GuildMusicManager musicManager = getManager(guild);
         guild.getAudioManager().setSendingHandler(musicManager.getSendHandler());
 
         return musicManager;
     }
 
     /**
-     * Joins the {@link VoiceChannel} specified by {@link #voiceChannel}, then queues the {@link #station}, and finally
+     * Gets the guild's {@link GuildMusicManager}, creating it the first time, without sending its audio.
+     *
+     * @param guild The {@link Guild} the manager pertains to.
+     * @return The {@link GuildMusicManager}
+     */
+    private GuildMusicManager getManager(Guild guild) {
+        // Touching inside compute() keeps evictIdleManagers() from removing a manager that is about to be used.
+        return musicManagers.compute(guild.getId(), (id, existing) -> {
+            GuildMusicManager manager = existing;
+            if (manager == null) {
+                manager = new GuildMusicManager(playerManager);
+                manager.scheduler.setLoader(TrackScheduler.loaderFor(playerManager, manager));
+                manager.setVolume(settings.get(id).getVolume());
+            }
+            manager.touch();
+            return manager;
+        });
+    }
+
+    /**
+     * @param guild The {@link Guild} to check.
+     * @return The guild's {@link GuildMusicManager} if it is playing a station, otherwise null.
+     */
+    private GuildMusicManager getPlayingManager(Guild guild) {
+        GuildMusicManager musicManager = musicManagers.get(guild.getId());
+        return musicManager != null && musicManager.getStation() != null ? musicManager : null;
+    }
+
+    /**
+     * Removes and destroys the {@link GuildMusicManager}s of guilds that have been stopped for {@link #IDLE_EVICTION}.
+     */
+    private void evictIdleManagers() {
+        for (String guildId : musicManagers.keySet()) {
+            musicManagers.computeIfPresent(guildId, (id, manager) -> {
+                if (!manager.isIdle(IDLE_EVICTION))
+                    return manager;
+                manager.destroy();
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Joins the {@link VoiceChannel} specified by {@link #voiceChannel}, then queues the radioStation, and finally
      * sends a message confirming the start or continued play of the radio.
      *
      * @param guild Used to get the {@link VoiceChannel}s available.
-     * @param channel {@link TextChannel} to send a message confirming the start or continued play of the radio.
+     * @param channel {@link TextChannel} to send a message confirming the start or continued play of the radio, or
+     *                null to not send one.
      * @param musicManager The {@link GuildMusicManager} used to queue the selected
      * @param radioStation The radio station to be queued.
+     * @param stationURL URL radioStation was loaded from.
      */
-    private void play(Guild guild, TextChannel channel, GuildMusicManager musicManager, AudioTrack radioStation) {
+    private void play(Guild guild, TextChannel channel, GuildMusicManager musicManager, AudioTrack radioStation, String stationURL) {
         joinVoice(guild, channel);
 
-        station = radioStation;
+        musicManager.setStation(radioStation, stationURL);
+        MetadataPoller.acquire(stationURL, guild.getId());
+        settings.update(guild.getId(), current -> current.withPlaying(true));
+        suspended.remove(guild.getId());
 
-        musicManager.scheduler.queue(radioStation);
-        nowPlaying(channel);
+        // A shared station is already playing on its broadcaster.
+        if (!musicManager.isShared())
+            musicManager.scheduler.queue(radioStation);
+        if (channel != null)
+            requestNowPlaying(channel);
+    }
+
+    /**
+     * Runs {@link #nowPlaying(TextChannel)} in the background, unless channel asked within {@link #NOW_PLAYING_WINDOW}
+     * and that answer covers this request too.
+     *
+     * @param channel {@link TextChannel} that asked.
+     */
+    private void requestNowPlaying(TextChannel channel) {
+        if (limiter.isCoalesced(channel.getId(), "nowplaying")) {
+            COALESCED.increment();
+            return;
+        }
+        runAsync(channel, () -> nowPlaying(channel));
     }
 
     /**
@@ -265,19 +866,33 @@ public class eRadio extends  ListenerAdapter{
      * @param channel Used to get the TextChannel to send the message to.
      */
     private void nowPlaying(TextChannel channel) {
-        if (channel.getGuild().getAudioManager().getSendingHandler() != null && station != null) {
-            if(!InternetRadioParser.getStationName(stationURL).equalsIgnoreCase("Unknown")) {
-                if (!InternetRadioParser.getCurrentSongArtist(stationURL).equalsIgnoreCase("Unknown") ||
-                        !InternetRadioParser.getCurrentSong(stationURL).equalsIgnoreCase("Unknown"))
+        GuildMusicManager musicManager = getPlayingManager(channel.getGuild());
+        if (channel.getGuild().getAudioManager().getSendingHandler() != null && musicManager != null) {
+            String url = musicManager.getStationURL();
+
+            // Answer from the background poller when it has a status, otherwise fetch one.
+            MetadataPoller poller = MetadataPoller.get(url);
+            StationStatus.Mount mount = poller != null ? poller.getCurrent() : null;
+            if (mount == null)
+                mount = InternetRadioParser.getMount(url);
+
+            // The command timed out while fetching, and the user has already been told.
+            if (Thread.currentThread().isInterrupted())
+                return;
+            if (mount == null)
+                channel.sendMessage("Could not get the station's info!").queue();
+            else if(!mount.getName().equalsIgnoreCase(StationStatus.UNKNOWN)) {
+                if (!mount.getArtist().equalsIgnoreCase(StationStatus.UNKNOWN) ||
+                        !mount.getTitle().equalsIgnoreCase(StationStatus.UNKNOWN))
                     channel.sendMessage(
-                                "***" + InternetRadioParser.getStationName(stationURL) + "***\n" +
-                                "**Artist:** " + InternetRadioParser.getCurrentSongArtist(stationURL) + "\n" +
-                                "**Song:** " + InternetRadioParser.getCurrentSong(stationURL)
+                                "***" + mount.getName() + "***\n" +
+                                "**Artist:** " + mount.getArtist() + "\n" +
+                                "**Song:** " + mount.getTitle()
                     ).queue();
                 else
                     channel.sendMessage(
-                            "**Radio Station:** " + InternetRadioParser.getStationName(stationURL) + "\n" +
-                                    "**Song:** " + InternetRadioParser.getCurrentSongInfo(stationURL)
+                            "**Radio Station:** " + mount.getName() + "\n" +
+                                    "**Song:** " + mount.getCurrentlyPlaying()
                     ).queue();
             }
         }
@@ -291,32 +906,238 @@ public class eRadio extends  ListenerAdapter{
      * @param channel {@link TextChannel} to send messages to.
      */
     private void stopPlayer(TextChannel channel) {
-        if(station == null)
+        GuildMusicManager musicManager = getPlayingManager(channel.getGuild());
+        if (suspended.remove(channel.getGuild().getId())) {
+            settings.update(channel.getGuild().getId(), current -> current.withPlaying(false));
+            channel.sendMessage("eRadio has stopped.").queue();
+        }
+        else if(musicManager == null)
             channel.sendMessage("eRadio is already stopped!").queue();
         else {
             channel.getGuild().getAudioManager().setSendingHandler(null);
-            station = null;
+            leaveStation(channel.getGuild(), musicManager);
             channel.sendMessage("eRadio has stopped.").queue();
         }
     }
 
+    /**
+     * Stops the guild's player and lets go of the station's shared stream and metadata poller. The guild is no longer
+     * resumed after a restart.
+     *
+     * @param guild The {@link Guild} that stopped.
+     * @param musicManager The guild's {@link GuildMusicManager}.
+     */
+    private void leaveStation(Guild guild, GuildMusicManager musicManager) {
+        releaseStation(guild, musicManager);
+        settings.update(guild.getId(), current -> current.withPlaying(false));
+    }
+
+    /**
+     * Stops the guild's player and lets go of the station's shared stream and metadata poller.
+     *
+     * @param guild The {@link Guild} to stop.
+     * @param musicManager The guild's {@link GuildMusicManager}.
+     */
+    private void releaseStation(Guild guild, GuildMusicManager musicManager) {
+        String url = musicManager.getStationURL();
+        if (url != null) {
+            MetadataPoller.release(url, guild.getId());
+            if (musicManager.isShared())
+                StationBroadcaster.release(url, guild.getId());
+        }
+        musicManager.stop();
+    }
+
+    /**
+     * Sends the guild's volume, or sets it first if arguments holds a new one (0 to 100).<br>
+     * A guild on a shared station is moved to its own stream, since shared frames are sent as is. Any volume other
+     * than 100% costs a decode and re-encode per guild (see {@link GuildMusicManager}), so -mute is the cheap way to
+     * silence the bot.
+     *
+     * @param channel {@link TextChannel} to send messages to.
+     * @param arguments The new volume, or nothing to only send the current one.
+     */
+    private void volume(TextChannel channel, String arguments) {
+        GuildMusicManager musicManager = getManager(channel.getGuild());
+        if (!arguments.isEmpty()) {
+            int volume;
+            try {
+                volume = Math.round(Float.parseFloat(arguments));
+            } catch (NumberFormatException e) {
+                channel.sendMessage("Usage: -volume [0-100]").queue();
+                return;
+            }
+            musicManager.setVolume(Math.max(0, Math.min(100, volume)));
+            settings.update(channel.getGuild().getId(), current -> current.withVolume(musicManager.getVolume()));
+
+            StationFormat format = StationFormat.get(stations.getSelectedURL(channel.getGuild().getId()));
+            if (format != null && format.isPassthrough() && musicManager.getVolume() != 100)
+                channel.sendMessage("This station's " + format.getCodec() + " is sent without re-encoding only at 100%. " +
+                        "Use -mute to silence eRadio instead.").queue();
+
+            if (musicManager.isShared() && musicManager.getVolume() != 100 && getPlayingManager(channel.getGuild()) != null) {
+                leaveStation(channel.getGuild(), musicManager);
+                loadAndPlay(channel);
+            }
+        }
+        channel.sendMessage("**Current Volume:** " + musicManager.getVolume() + "%").queue();
+    }
+
+    /**
+     * Mutes or unmutes the guild and sends a confirmation message. Muting stops sending frames rather than sending
+     * silence, and leaves the volume (and a shared station) as it is.
+     *
+     * @param channel {@link TextChannel} to send messages to.
+     * @param mute True to mute, false to unmute.
+     */
+    private void mute(TextChannel channel, boolean mute) {
+        GuildMusicManager musicManager = getManager(channel.getGuild());
+        if (musicManager.isMuted() == mute)
+            channel.sendMessage(mute ? "Playback already muted!" : "Playback already un-muted!").queue();
+        else {
+            musicManager.setMuted(mute);
+            channel.sendMessage(mute ? "Playback muted!" : "Playback un-muted!").queue();
+        }
+    }
+
+    /**
+     * Sends the guild's VoiceChannel, or picks the one named by arguments first. "default" goes back to the one from
+     * the bot.properties file.
+     *
+     * @param channel {@link TextChannel} to send messages to.
+     * @param arguments Name of the VoiceChannel, or nothing to only send the current one.
+     */
+    private void selectVoice(TextChannel channel, String arguments) {
+        Guild guild = channel.getGuild();
+        if (arguments.equalsIgnoreCase("default"))
+            settings.update(guild.getId(), current -> current.withVoiceChannelId(null));
+        else if (!arguments.isEmpty()) {
+            VoiceChannel voice = voiceChannels.find(guild, arguments);
+            if (voice == null) {
+                channel.sendMessage("There isn't a VoiceChannel called: '" + arguments + "'!").queue();
+                return;
+            }
+            settings.update(guild.getId(), current -> current.withVoiceChannelId(voice.getId()));
+        }
+
+        String voiceId = settings.get(guild.getId()).getVoiceChannelId();
+        VoiceChannel voice = voiceId != null ? guild.getVoiceChannelById(voiceId) : null;
+        channel.sendMessage("**VoiceChannel:** " + (voice != null ? voice.getName() : voiceChannel)).queue();
+    }
+
+    /**
+     * Sends the list of stations, marking the guild's selection.
+     *
+     * @param channel {@link TextChannel} to send the list to.
+     */
+    private void listStations(TextChannel channel) {
+        String selected = stations.getSelection(channel.getGuild().getId());
+        StringBuilder message = new StringBuilder("__**Stations:**__\n");
+        for (String name : stations.getNames())
+            message.append(name.equals(selected) ? "**" + name + "** (selected)" : name).append('\n');
+        channel.sendMessage(message.append("Use -station [Name] to pick one.").toString()).queue();
+    }
+
+    /**
+     * Selects the guild's station, and switches to it right away if the guild is playing another one.
+     *
+     * @param channel {@link TextChannel} to send messages to.
+     * @param name Name of the station.
+     */
+    private void selectStation(TextChannel channel, String name) {
+        Guild guild = channel.getGuild();
+        if (!stations.select(guild.getId(), name)) {
+            channel.sendMessage("There isn't a station called: '" + name + "'! Use -station to list them.").queue();
+            return;
+        }
+
+        GuildMusicManager musicManager = getPlayingManager(guild);
+        String stationURL = stations.getSelectedURL(guild.getId());
+        if (musicManager == null || stationURL.equals(musicManager.getStationURL())) {
+            channel.sendMessage("Selected " + name.toLowerCase() + ".").queue();
+            return;
+        }
+
+        leaveStation(guild, musicManager);
+        loadAndPlay(channel);
+    }
+
+    /**
+     * Rotates the guild through stations in programming blocks, e.g. "60 http://a/stream http://b/stream" plays each
+     * station for 60 minutes. Blocks are aligned to the clock. The guild plays through its own player while rotating.
+     *
+     * @param channel {@link TextChannel} to send messages to.
+     * @param arguments Block length in minutes followed by the station URLs.
+     */
+    private void rotate(TextChannel channel, String arguments) {
+        String[] parts = arguments.split("\\s+");
+        long minutes;
+        try {
+            minutes = Long.parseLong(parts[0]);
+        } catch (NumberFormatException e) {minutes = 0;}
+        if (minutes < 1 || parts.length < 2) {
+            channel.sendMessage("Usage: -rotate <minutes> <station url> [station url...]").queue();
+            return;
+        }
+
+        Guild guild = channel.getGuild();
+        GuildMusicManager musicManager = getGuildAudioPlayer(guild);
+        leaveStation(guild, musicManager);
+
+        TrackScheduler.TrackLoader loader = TrackScheduler.loaderFor(playerManager, musicManager);
+        musicManager.scheduler.rotate(Arrays.asList(parts).subList(1, parts.length), minutes * 60000,
+                (url, onLoaded, onFailed) -> loader.load(url, track -> {
+                    if (musicManager.scheduler.isRotating())
+                        musicManager.setStation(track, url);
+                    onLoaded.accept(track);
+                }, () -> {
+                    channel.sendMessage("Could not play: " + url).queue();
+                    onFailed.run();
+                }));
+
+        joinVoice(guild, channel);
+        channel.sendMessage("Rotating through " + (parts.length - 1) + " stations every " + minutes + " minutes.").queue();
+    }
+
+    /**
+     * Turns song change announcements in channel on or off and sends a confirmation message.
+     *
+     * @param channel {@link TextChannel} to announce song changes in.
+     */
+    private void toggleAnnouncements(TextChannel channel) {
+        GuildMusicManager musicManager = getPlayingManager(channel.getGuild());
+        MetadataPoller poller = musicManager != null ? MetadataPoller.get(musicManager.getStationURL()) : null;
+        if (poller == null)
+            channel.sendMessage("eRadio is not currently playing anything!").queue();
+        else if (poller.toggleAnnouncements(channel))
+            channel.sendMessage("Song changes will be announced in this channel.").queue();
+        else
+            channel.sendMessage("Song changes will no longer be announced in this channel.").queue();
+    }
+
     /**
      * Sends a list of commands the bot has available to the command user.
      *
      * @param user The {@link User} that entered the command. Used to get their {@link PrivateChannel}.
      */
     private void sendCommands(User user) {
-        PrivateChannel pm = user.openPrivateChannel().complete();
-        pm.sendMessage(
+        user.openPrivateChannel().queue(pm -> pm.sendMessage(
                 "__**Commands:**__\n" +
                         "```\n" +
-                        "-join // Joins the VoiceChannel from the bot.properties file if possible.\n" +
+                        "-join // Joins the VoiceChannel set with -voice, or the one from the bot.properties file, if possible.\n" +
                         "-leave // Leaves the current VoiceChannel if in one.\n" +
                         "-play // Starts playback.\n" +
                         "-nowplaying // Gets the current song's info if possible.\n" +
                         "-stop // Stops playback.\n" +
+                        "-volume [0-100] // Gets or sets the volume.\n" +
+                        "-mute // Mutes playback.\n" +
+                        "-unmute // Un-mutes playback.\n" +
+                        "-station [Name] // Lists the stations, or switches to the named one.\n" +
+                        "-voice [Name] // Gets or sets the VoiceChannel to play in (\"default\" for the usual one).\n" +
+                        "-announce // Toggles song change announcements in the current TextChannel.\n" +
+                        "-rotate [Minutes] [URL...] // Rotates through the stations, playing each for [Minutes].\n" +
                         "-help // Messages the user a list of commands.\n" +
                         "```"
-        ).queue();
+        ).queue());
     }
 }
\ No newline at end of file
@@ -16,8 +16,6 @@ import net.grasinga.discord.libraries.InternetRadioParser;
 import javax.security.auth.login.LoginException;
 import java.io.*;
 import java.text.DecimalFormat;
-import java.util.LinkedList;
-import java.util.List;
 
 /**
  * <a href="http://ethereal.network/" target="_blank">Ethereal Network</a>'s Radio Bot<br>
@@ -98,6 +96,23 @@ public class eRadio extends ListenerAdapter{
      */
     private String station = "";
 
+    /**
+     * How long (in milliseconds) {@link #stationSource} is reused before the station is resolved again. Set with
+     * -DeRadio.stationCacheTTL.
+     */
+    private static final long STATION_CACHE_TTL = Long.getLong("eRadio.stationCacheTTL", 3600000);
+
+    /**
+     * The station's resolved audio source. Resolving goes through youtube-dl, so it is done once at startup and reused
+     * by every '-play' until it is older than {@link #STATION_CACHE_TTL} or fails to play.
+     */
+    private AudioSource stationSource;
+
+    /**
+     * When (from {@link System#currentTimeMillis()}) {@link #stationSource} was resolved.
+     */
+    private long stationSourceLoadedAt;
+
     /**
      * VoiceChannel that the bot will play in.
      */
@@ -129,6 +144,35 @@ public class eRadio extends ListenerAdapter{
     private eRadio(String station, String voiceChannel) {
         this.station = station;
         this.voiceChannel = voiceChannel;
+
+        Thread prewarm = new Thread(() -> {
+            try {
+                getStationSource();
+            }catch (Exception e){System.out.println("Could not pre-load the radio: " + e.getMessage());}
+        }, "eRadio-prewarm");
+        prewarm.setDaemon(true);
+        prewarm.start();
+    }
+
+    /**
+     * Gets the station's audio source, resolving it if it has not been resolved yet or is too old.
+     *
+     * @return The station's first audio source.
+     */
+    private synchronized AudioSource getStationSource() {
+        if (stationSource == null || System.currentTimeMillis() - stationSourceLoadedAt > STATION_CACHE_TTL) {
+            Playlist playlist = Playlist.getPlaylist(station);
+            stationSource = playlist.getSources().get(0);
+            stationSourceLoadedAt = System.currentTimeMillis();
+        }
+        return stationSource;
+    }
+
+    /**
+     * Drops the cached audio source so the next '-play' resolves the station again.
+     */
+    private synchronized void forgetStationSource() {
+        stationSource = null;
     }
 
     /**
@@ -227,9 +271,7 @@ public class eRadio extends ListenerAdapter{
             try {
                 setSendingHandler(channel.getGuild().getAudioManager());
 
-                Playlist playlist = Playlist.getPlaylist(station);
-                List<AudioSource> sources = new LinkedList<>(playlist.getSources());
-                player.getAudioQueue().add(sources.get(0));
+                player.getAudioQueue().add(getStationSource());
 
                 if (!channel.getGuild().getAudioManager().isConnected())
                     joinVoice(channel.getGuild(), channel, voiceChannel);
@@ -238,7 +280,11 @@ public class eRadio extends ListenerAdapter{
 
                 channel.sendMessage("__**Player has started**__");
                 nowPlaying(player, channel);
-            }catch (Exception e){System.out.println("An error occurred when trying to load the radio!"); e.printStackTrace();}
+            }catch (Exception e){
+                forgetStationSource();
+                System.out.println("An error occurred when trying to load the radio!");
+                e.printStackTrace();
+            }
         }
     }
 
@@ -0,0 +1,332 @@
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small stand-in for an Icecast server, for load and integration testing the bot without a live station.<br>
+ * It serves /status-json.xsl listing the station's mount (/stream) after a configurable number of filler mounts, and
+ * streams MP3 at real-time pace on every listed mount. Clients sending Icy-MetaData: 1 get the current song as ICY
+ * metadata. The audio is silent MPEG-1 Layer III frames unless an MP3 file is given.<br>
+ * Latency, stalls and disconnects can be injected, and changed while the server runs.<br>
+ * Run it on its own with:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=IcecastStandIn \
+ *     -Dexec.args="port=8000 mounts=500 latency=200 stallEvery=30000 stall=5000 disconnectAfter=120000"
+ * </pre>
+ * and point the bot at http://127.0.0.1:8000/stream.
+ */
+class IcecastStandIn {
+
+    /**
+     * Mount point the station itself is served on.
+     */
+    static final String STATION_MOUNT = "stream";
+
+    /**
+     * Bytes of audio between ICY metadata blocks.
+     */
+    private static final int META_INT = 16000;
+
+    /**
+     * A silent 128 kbps, 44.1 kHz stereo MPEG-1 Layer III frame: the header followed by zeros, so no audio data.
+     */
+    private static final byte[] SILENT_FRAME = new byte[417];
+
+    static {
+        SILENT_FRAME[0] = (byte) 0xFF;
+        SILENT_FRAME[1] = (byte) 0xFB;
+        SILENT_FRAME[2] = (byte) 0x90;
+    }
+
+    private final HttpServer server;
+    private final int mounts;
+    private final byte[] audio;
+    private final int bytesPerSecond;
+    private final AtomicInteger listeners = new AtomicInteger();
+
+    private volatile String artist = "Aphex Twin";
+    private volatile String title = "Windowlicker";
+    private volatile long latency;
+    private volatile long stallEvery;
+    private volatile long stall;
+    private volatile long disconnectAfter;
+
+    /**
+     * @param port Port to listen on (on the loopback address), or 0 for any free port.
+     * @param mounts Number of filler mounts listed before the station's mount.
+     * @param audio MP3 data to loop, or null for silence.
+     * @param bitrate Bitrate of audio in kbps. Sets the streaming pace.
+     * @throws IOException If the port could not be bound.
+     */
+    IcecastStandIn(int port, int mounts, byte[] audio, int bitrate) throws IOException {
+        this.mounts = mounts;
+        this.audio = audio != null ? audio : SILENT_FRAME;
+        this.bytesPerSecond = audio != null ? bitrate * 1000 / 8 : SILENT_FRAME.length * 44100 / 1152;
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "icecast-stand-in");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.createContext("/", this::handle);
+    }
+
+    /**
+     * Starts serving.
+     */
+    void start() {
+        server.start();
+    }
+
+    /**
+     * Stops serving and closes open streams.
+     */
+    void stop() {
+        server.stop(0);
+    }
+
+    /**
+     * @return URL of the station's stream.
+     */
+    String getStationURL() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/" + STATION_MOUNT;
+    }
+
+    /**
+     * @return Number of clients currently streaming.
+     */
+    int getListeners() {
+        return listeners.get();
+    }
+
+    /**
+     * Changes the song in the status and in ICY metadata.
+     *
+     * @param artist Artist of the song.
+     * @param title Title of the song.
+     */
+    void setSong(String artist, String title) {
+        this.artist = artist;
+        this.title = title;
+    }
+
+    /**
+     * @param latency How long (in milliseconds) every response is delayed before it starts.
+     */
+    void setLatency(long latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * @param stallEvery How long (in milliseconds) a stream plays before it stalls, or 0 to never stall.
+     * @param stall How long (in milliseconds) a stall sends nothing.
+     */
+    void setStalls(long stallEvery, long stall) {
+        this.stallEvery = stallEvery;
+        this.stall = stall;
+    }
+
+    /**
+     * @param disconnectAfter How long (in milliseconds) a stream plays before the server ends it, or 0 to never.
+     */
+    void setDisconnectAfter(long disconnectAfter) {
+        this.disconnectAfter = disconnectAfter;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            sleep(latency);
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals("/status-json.xsl"))
+                sendStatus(exchange);
+            else if (isMount(path.substring(1)))
+                stream(exchange);
+            else
+                exchange.sendResponseHeaders(404, -1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * @param mountPoint Mount point without the leading '/'.
+     * @return True if the status lists the mount.
+     */
+    private boolean isMount(String mountPoint) {
+        if (mountPoint.equals(STATION_MOUNT))
+            return true;
+        if (!mountPoint.startsWith("mount"))
+            return false;
+        try {
+            int index = Integer.parseInt(mountPoint.substring("mount".length()));
+            return index >= 0 && index < mounts;
+        } catch (NumberFormatException e) {return false;}
+    }
+
+    private void sendStatus(HttpExchange exchange) throws IOException {
+        String host = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        StringWriter json = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(json)) {
+            writer.beginObject().name("icestats").beginObject()
+                    .name("admin").value("icemaster@localhost")
+                    .name("host").value("127.0.0.1")
+                    .name("server_id").value("Icecast 2.4.4 (stand-in)")
+                    .name("source").beginArray();
+            for (int i = 0; i < mounts; i++)
+                writeSource(writer, host + "mount" + i, "Filler " + i, 0);
+            writeSource(writer, host + STATION_MOUNT, "eRadio Stand-in", listeners.get());
+            writer.endArray().endObject().endObject();
+        }
+
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private void writeSource(JsonWriter writer, String listenURL, String name, int listenerCount) throws IOException {
+        String artist = this.artist;
+        String title = this.title;
+        writer.beginObject()
+                .name("audio_info").value("bitrate=" + bytesPerSecond * 8 / 1000)
+                .name("bitrate").value(bytesPerSecond * 8 / 1000)
+                .name("genre").value("Various")
+                .name("listeners").value(listenerCount)
+                .name("listenurl").value(listenURL)
+                .name("server_name").value(name)
+                .name("server_type").value("audio/mpeg")
+                .name("artist").value(artist)
+                .name("title").value(title)
+                .name("yp_currently_playing").value(artist + " - " + title)
+                .endObject();
+    }
+
+    /**
+     * Streams the audio at real-time pace until the client leaves, a disconnect is injected or the server stops.
+     */
+    private void stream(HttpExchange exchange) throws IOException, InterruptedException {
+        boolean icy = "1".equals(exchange.getRequestHeaders().getFirst("Icy-MetaData"));
+        exchange.getResponseHeaders().set("Content-Type", "audio/mpeg");
+        exchange.getResponseHeaders().set("icy-name", "eRadio Stand-in");
+        exchange.getResponseHeaders().set("icy-br", String.valueOf(bytesPerSecond * 8 / 1000));
+        if (icy)
+            exchange.getResponseHeaders().set("icy-metaint", String.valueOf(META_INT));
+        exchange.sendResponseHeaders(200, 0);
+
+        OutputStream out = exchange.getResponseBody();
+        listeners.incrementAndGet();
+        try {
+            long start = System.nanoTime();
+            long sent = 0;
+            long nextStall = stallEvery;
+            int position = 0;
+            int untilMeta = META_INT;
+
+            while (true) {
+                long played = sent * 1000 / bytesPerSecond;
+                if (disconnectAfter > 0 && played >= disconnectAfter)
+                    return;
+                if (nextStall > 0 && played >= nextStall) {
+                    sleep(stall);
+                    start += TimeUnit.MILLISECONDS.toNanos(stall);
+                    nextStall += stallEvery;
+                }
+
+                // Sends whatever is due, then waits 20 ms like a real-time source.
+                long due = (System.nanoTime() - start) / 1000 * bytesPerSecond / 1000000 - sent;
+                while (due > 0) {
+                    int length = (int) Math.min(due, Math.min(audio.length - position, untilMeta));
+                    out.write(audio, position, length);
+                    sent += length;
+                    due -= length;
+                    position = (position + length) % audio.length;
+                    untilMeta -= length;
+                    if (untilMeta == 0) {
+                        untilMeta = META_INT;
+                        if (icy)
+                            out.write(metadataBlock());
+                    }
+                }
+                out.flush();
+                Thread.sleep(20);
+            }
+        } catch (IOException e) {
+            // The client left.
+        } finally {
+            listeners.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return An ICY metadata block with the current song, or an empty block if the song is too long to fit.
+     */
+    private byte[] metadataBlock() {
+        byte[] text = ("StreamTitle='" + artist + " - " + title + "';").getBytes(StandardCharsets.UTF_8);
+        int blocks = (text.length + 15) / 16;
+        if (blocks > 255)
+            return new byte[1];
+
+        byte[] block = new byte[1 + blocks * 16];
+        block[0] = (byte) blocks;
+        System.arraycopy(text, 0, block, 1, text.length);
+        return block;
+    }
+
+    private static void sleep(long millis) throws InterruptedException {
+        if (millis > 0)
+            Thread.sleep(millis);
+    }
+
+    /**
+     * Runs the stand-in until it is killed.<br>
+     * Arguments are key=value pairs: port (8000), mounts (100), file (MP3 to loop), bitrate (128, for file),
+     * latency, stallEvery, stall, disconnectAfter and songEvery (all in milliseconds, 0 by default). With songEvery
+     * set, the song changes that often.
+     *
+     * @param args The key=value pairs.
+     * @throws Exception If the server could not be started.
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int split = arg.indexOf('=');
+            if (split > 0)
+                options.put(arg.substring(0, split), arg.substring(split + 1));
+        }
+
+        String file = options.get("file");
+        IcecastStandIn standIn = new IcecastStandIn(
+                Integer.parseInt(options.getOrDefault("port", "8000")),
+                Integer.parseInt(options.getOrDefault("mounts", "100")),
+                file != null ? Files.readAllBytes(Paths.get(file)) : null,
+                Integer.parseInt(options.getOrDefault("bitrate", "128")));
+        standIn.setLatency(Long.parseLong(options.getOrDefault("latency", "0")));
+        standIn.setStalls(Long.parseLong(options.getOrDefault("stallEvery", "0")), Long.parseLong(options.getOrDefault("stall", "0")));
+        standIn.setDisconnectAfter(Long.parseLong(options.getOrDefault("disconnectAfter", "0")));
+        standIn.start();
+        System.out.println("Icecast stand-in streaming on " + standIn.getStationURL());
+
+        long songEvery = Long.parseLong(options.getOrDefault("songEvery", "0"));
+        for (int song = 1; ; song++) {
+            Thread.sleep(songEvery > 0 ? songEvery : Long.MAX_VALUE);
+            standIn.setSong("Stand-in", "Song " + song);
+        }
+    }
+}